@@ -0,0 +1,69 @@
+package lab1.src;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A problem instance stored as parallel arrays: node i is at (x[i], y[i]) and costs cost[i].
+ * Solvers work on the arrays directly; Node is only a per-node view for printing.
+ */
+public class Instance {
+    private final int[] x;
+    private final int[] y;
+    private final int[] costs;
+
+    public Instance(int[] x, int[] y, int[] costs) {
+        if (x.length != y.length || x.length != costs.length) {
+            throw new IllegalArgumentException("x, y and costs arrays must have the same length");
+        }
+        this.x = x;
+        this.y = y;
+        this.costs = costs;
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getCost(int i) {
+        return costs[i];
+    }
+
+    public int[] getXs() {
+        return x;
+    }
+
+    public int[] getYs() {
+        return y;
+    }
+
+    public int[] getCosts() {
+        return costs;
+    }
+
+    /**
+     * Returns node i as a Node object (a copy, changing it does not change the instance)
+     */
+    public Node getNode(int i) {
+        return new Node(x[i], y[i], costs[i]);
+    }
+
+    /**
+     * Returns the nodes as Node objects, for code that still works on List<Node>
+     */
+    public List<Node> toNodes() {
+        List<Node> nodes = new ArrayList<>(x.length);
+        for (int i = 0; i < x.length; i++) {
+            nodes.add(new Node(x[i], y[i], costs[i]));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,191 @@
+package lab1.src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Everything the solvers derive from an instance, computed once and shared: the node arrays,
+ * the distances (with fused arc costs) and for every node its nearest neighbors by arc cost.
+ * Immutable, so one bundle can be handed to any number of solvers and threads, as long as its
+ * DistanceOracle is thread-safe too; all oracles here are (CoordinateDistanceOracle keeps a
+ * row cache per thread).
+ *
+ * A bundle with a dense DistanceMatrix can be saved next to the instance file (TSPA.csv ->
+ * TSPA.bundle) so later runs skip the preprocessing. File layout: a 16-byte header (magic,
+ * version, n, neighbors per node) followed by the x, y and cost arrays, the n * n distances
+ * and the n * k neighbor lists, all as little-endian ints.
+ */
+public class InstanceBundle {
+
+    public static final int NEIGHBORS = 20; // neighbors kept per node, enough for every candidate list
+
+    private static final int MAGIC = 0x424E444C; // "BNDL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final Instance instance;
+    private final DistanceOracle distances;
+    private final int[][] neighbors; // neighbors[i] = nodes j != i by increasing arc cost from i
+
+    /**
+     * Bundles an instance with already computed distances and computes the neighbor lists
+     */
+    public InstanceBundle(Instance instance, DistanceOracle distances) {
+        this(instance, distances,
+                new NeighborGrid(instance.getXs(), instance.getYs(), instance.getCosts()).nearestAll(NEIGHBORS));
+    }
+
+    private InstanceBundle(Instance instance, DistanceOracle distances, int[][] neighbors) {
+        if (distances.size() != instance.size()) {
+            throw new IllegalArgumentException("distances and instance have different sizes");
+        }
+        this.instance = instance;
+        this.distances = distances;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Computes the bundle of an instance with a dense distance matrix
+     */
+    public static InstanceBundle build(Instance instance) {
+        int n = instance.size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = instance.getX(i);
+            y[i] = instance.getY(i);
+        }
+        return new InstanceBundle(instance, new DistanceMatrix(x, y, instance.getCosts()));
+    }
+
+    /**
+     * Reads the saved bundle of an instance file if it is up to date, otherwise builds the
+     * bundle from the instance and saves it for the next run
+     * @param instanceFile the file the instance was read from
+     * @param instance the instance read from it
+     */
+    public static InstanceBundle loadOrBuild(Path instanceFile, Instance instance) {
+        Path bundleFile = bundleFile(instanceFile);
+        try {
+            if (Files.exists(bundleFile)
+                    && Files.getLastModifiedTime(bundleFile).compareTo(Files.getLastModifiedTime(instanceFile)) >= 0) {
+                return read(bundleFile);
+            }
+        } catch (IOException e) {
+            e.printStackTrace(); // rebuild below
+        }
+
+        InstanceBundle bundle = build(instance);
+        try {
+            bundle.save(bundleFile);
+        } catch (IOException e) {
+            e.printStackTrace(); // the bundle is still usable, it just is not cached
+        }
+        return bundle;
+    }
+
+    /**
+     * Returns the path of the saved bundle belonging to an instance file
+     */
+    public static Path bundleFile(Path instanceFile) {
+        String name = instanceFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return instanceFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".bundle");
+    }
+
+    public static InstanceBundle read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(STR."invalid instance bundle: \{file}");
+            }
+            int n = buffer.getInt(8);
+            int k = buffer.getInt(12);
+            if (n < 0 || k != Math.min(NEIGHBORS, Math.max(0, n - 1))
+                    || buffer.capacity() != fileSize(n, k)) {
+                throw new IOException(STR."invalid instance bundle: \{file}");
+            }
+
+            IntBuffer ints = buffer.position(HEADER_BYTES).asIntBuffer();
+            int[] x = new int[n];
+            int[] y = new int[n];
+            int[] costs = new int[n];
+            int[] matrix = new int[n * n];
+            ints.get(x).get(y).get(costs).get(matrix);
+            int[][] neighbors = new int[n][k];
+            for (int[] list : neighbors) {
+                ints.get(list);
+            }
+            return new InstanceBundle(new Instance(x, y, costs), new DistanceMatrix(matrix, costs), neighbors);
+        }
+    }
+
+    /**
+     * Writes the bundle to a file; only bundles with a dense DistanceMatrix can be saved
+     */
+    public void save(Path file) throws IOException {
+        if (!(distances instanceof DistanceMatrix matrix)) {
+            throw new IOException("only bundles with a dense DistanceMatrix can be saved");
+        }
+        int n = instance.size();
+        int k = n > 0 ? neighbors[0].length : 0;
+        long size = fileSize(n, k);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(STR."instance too large for a bundle file: \{n}");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(k);
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.put(instance.getXs()).put(instance.getYs()).put(instance.getCosts()).put(matrix.getMatrix());
+        for (int[] list : neighbors) {
+            ints.put(list);
+        }
+        buffer.clear();
+
+        // write to a temporary file and move it into place, so parallel runs never read half a bundle
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long fileSize(int n, int k) {
+        return HEADER_BYTES + (3L * n + (long) n * n + (long) n * k) * Integer.BYTES;
+    }
+
+    public Instance getInstance() {
+        return instance;
+    }
+
+    public DistanceOracle getDistances() {
+        return distances;
+    }
+
+    /**
+     * Returns the min(NEIGHBORS, n - 1) nodes nearest to i by arc cost, best first.
+     * The array is shared, callers must not modify it.
+     */
+    public int[] getNeighbors(int i) {
+        return neighbors[i];
+    }
+
+    public int size() {
+        return instance.size();
+    }
+}
@@ -1,9 +1,8 @@
 package lab1.src;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,7 +10,7 @@ public class Main {
     public static void main(String[] args) throws IOException {
         String fileName = "TSPA";
         String filePath = STR."../data/\{fileName}.csv";
-        List<Node> nodes = new ArrayList<>();
+        Instance instance;
 
         SolutionSpace randomSolutions = new SolutionSpace();
         SolutionSpace nearestNeighboursAtEnd = new SolutionSpace();
@@ -23,41 +22,24 @@ public class Main {
         long nnFlexibleTime = 0;
         long greedyCycleTime = 0;
 
-        // Read CSV into Node list
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(";");
-                if (values.length >= 3) {
-                    int x = Integer.parseInt(values[0].trim());
-                    int y = Integer.parseInt(values[1].trim());
-                    int cost = Integer.parseInt(values[2].trim());
-                    nodes.add(new Node(x, y, cost));
-                }
-            }
+        // Read CSV into the instance
+        try {
+            instance = InstanceLoader.load(Path.of(filePath));
 
         } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
 
-        // Convert List<Node> to coordinate arrays
-        int n = nodes.size();
-        double[] x = new double[n];
-        double[] y = new double[n];
-
-        for (int i = 0; i < n; i++) {
-            x[i] = nodes.get(i).getX();
-            y[i] = nodes.get(i).getY();
-        }
-
-        // Generate and print distance matrix
-        DistanceMatrix dm = new DistanceMatrix(x, y);
+        int n = instance.size();
+        // Load (or build and save) the instance bundle and print its distance matrix
+        InstanceBundle bundle = InstanceBundle.loadOrBuild(Path.of(filePath), instance);
+        DistanceOracle dm = bundle.getDistances();
         System.out.println("=== Distance Matrix ===");
         dm.printMatrix();
 
         // Initialize solver
-        TSPSolver solver = new TSPSolver(dm.getMatrix(), nodes);
+        TSPSolver solver = new TSPSolver(bundle);
         for (int i = 0; i < n; i++) {
             System.out.println(STR."Iteration number:\{i + 1}");
             // 1. Random solution
@@ -0,0 +1,204 @@
+package lab1.src;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Uniform grid over the node coordinates for building candidate lists without looking
+ * at all n * n pairs.
+ *
+ * A query returns the k nodes j != i with the smallest arc cost round(distance(i, j)) + cost(j),
+ * ties broken by the lower index (the same order as sorting all nodes by arc cost). Cells are
+ * visited in rings around the cell of i, and cells or rings whose lower bound (distance to the
+ * cell plus the smallest cost in it) is worse than the current k-th best are skipped.
+ *
+ * Building is a counting sort of the nodes into cells, O(n). Queries only read the grid,
+ * so nearestAll runs them in parallel.
+ */
+public class NeighborGrid {
+
+    private static final int NODES_PER_CELL = 2;
+    private static final double SLACK = 1e-6; // keeps floating-point error in the bounds from pruning ties
+
+    private final int n;
+    private final int[] x;
+    private final int[] y;
+    private final int[] costs;
+
+    private final int cols;
+    private final int rows;
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int[] cellStart;   // nodes of cell c are cellNodes[cellStart[c]..cellStart[c + 1])
+    private final int[] cellNodes;
+    private final int[] cellMinCost; // smallest node cost in each cell, MAX_VALUE if empty
+    private final int minCost;
+
+    /**
+     * @param x array of x-coordinates
+     * @param y array of y-coordinates
+     * @param costs array of node costs
+     */
+    public NeighborGrid(int[] x, int[] y, int[] costs) {
+        if (x.length != y.length || x.length != costs.length) {
+            throw new IllegalArgumentException("x, y and costs arrays must have the same length");
+        }
+        this.n = x.length;
+        this.x = x;
+        this.y = y;
+        this.costs = costs;
+
+        int loX = Integer.MAX_VALUE, hiX = Integer.MIN_VALUE;
+        int loY = Integer.MAX_VALUE, hiY = Integer.MIN_VALUE;
+        int lowestCost = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            loX = Math.min(loX, x[i]);
+            hiX = Math.max(hiX, x[i]);
+            loY = Math.min(loY, y[i]);
+            hiY = Math.max(hiY, y[i]);
+            lowestCost = Math.min(lowestCost, costs[i]);
+        }
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt((double) n / NODES_PER_CELL)));
+        this.cols = side;
+        this.rows = side;
+        this.minX = n > 0 ? loX : 0;
+        this.minY = n > 0 ? loY : 0;
+        this.cellWidth = n > 0 ? ((double) hiX - loX + 1) / cols : 1;
+        this.cellHeight = n > 0 ? ((double) hiY - loY + 1) / rows : 1;
+        this.minCost = lowestCost;
+
+        // counting sort of the nodes by cell
+        int cells = cols * rows;
+        int[] cellOf = new int[n];
+        cellStart = new int[cells + 1];
+        cellMinCost = new int[cells];
+        Arrays.fill(cellMinCost, Integer.MAX_VALUE);
+        for (int i = 0; i < n; i++) {
+            int c = cellOf(x[i], y[i]);
+            cellOf[i] = c;
+            cellStart[c + 1]++;
+            cellMinCost[c] = Math.min(cellMinCost[c], costs[i]);
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellNodes = new int[n];
+        int[] fill = cellStart.clone();
+        for (int i = 0; i < n; i++) {
+            cellNodes[fill[cellOf[i]]++] = i;
+        }
+    }
+
+    /**
+     * Returns the candidate lists of all nodes, computed in parallel
+     */
+    public int[][] nearestAll(int k) {
+        int[][] nearest = new int[n][];
+        IntStream nodes = IntStream.range(0, n);
+        if (n >= DistanceMatrix.PARALLEL_THRESHOLD) {
+            nodes = nodes.parallel();
+        }
+        nodes.forEach(i -> nearest[i] = nearest(i, k));
+        return nearest;
+    }
+
+    /**
+     * Returns the min(k, n - 1) nodes j != i with the smallest arc cost from i, best first
+     */
+    public int[] nearest(int i, int k) {
+        int size = Math.min(k, n - 1);
+        int[] best = new int[size];
+        int[] bestCost = new int[size];
+        if (size <= 0) {
+            return best;
+        }
+        int found = 0;
+
+        double px = x[i];
+        double py = y[i];
+        int cx = col(px);
+        int cy = row(py);
+        int maxRing = Math.max(Math.max(cx, cols - 1 - cx), Math.max(cy, rows - 1 - cy));
+
+        for (int r = 0; r <= maxRing; r++) {
+            if (found == size && r > 0) {
+                // every node in ring r lies outside the (2r - 1) x (2r - 1) block around cell (cx, cy)
+                double ringDistance = Math.min(
+                        Math.min(px - (minX + (cx - r + 1) * cellWidth), minX + (cx + r) * cellWidth - px),
+                        Math.min(py - (minY + (cy - r + 1) * cellHeight), minY + (cy + r) * cellHeight - py));
+                if (Math.round(Math.max(0, ringDistance - SLACK)) + (long) minCost > bestCost[size - 1]) {
+                    break;
+                }
+            }
+
+            for (int gy = Math.max(0, cy - r); gy <= Math.min(rows - 1, cy + r); gy++) {
+                boolean edgeRow = gy == cy - r || gy == cy + r;
+                int step = edgeRow ? 1 : 2 * r; // inner rows of the ring only have their two end cells
+                for (int gx = cx - r; gx <= cx + r; gx += step) {
+                    if (gx < 0 || gx >= cols) continue;
+                    int c = gy * cols + gx;
+                    if (cellStart[c] == cellStart[c + 1]) continue;
+                    if (found == size && Math.round(Math.max(0, cellDistance(px, py, gx, gy) - SLACK)) + (long) cellMinCost[c] > bestCost[size - 1]) {
+                        continue;
+                    }
+
+                    for (int t = cellStart[c]; t < cellStart[c + 1]; t++) {
+                        int j = cellNodes[t];
+                        if (j == i) continue;
+                        int cost = arcCost(i, j);
+                        if (found == size && !better(cost, j, bestCost[size - 1], best[size - 1])) continue;
+
+                        // insert into the sorted top list
+                        int pos = found < size ? found++ : size - 1;
+                        while (pos > 0 && better(cost, j, bestCost[pos - 1], best[pos - 1])) {
+                            best[pos] = best[pos - 1];
+                            bestCost[pos] = bestCost[pos - 1];
+                            pos--;
+                        }
+                        best[pos] = j;
+                        bestCost[pos] = cost;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Same value as DistanceOracle.getArcCost, computed from the coordinates so queries are thread-safe
+     */
+    private int arcCost(int i, int j) {
+        double dx = (double) x[i] - x[j];
+        double dy = (double) y[i] - y[j];
+        return (int) Math.round(Math.sqrt(dx * dx + dy * dy)) + costs[j];
+    }
+
+    private static boolean better(int cost, int node, int otherCost, int otherNode) {
+        return cost < otherCost || (cost == otherCost && node < otherNode);
+    }
+
+    /**
+     * Distance from (px, py) to the nearest point of cell (gx, gy)
+     */
+    private double cellDistance(double px, double py, int gx, int gy) {
+        double left = minX + gx * cellWidth;
+        double bottom = minY + gy * cellHeight;
+        double dx = Math.max(0, Math.max(left - px, px - (left + cellWidth)));
+        double dy = Math.max(0, Math.max(bottom - py, py - (bottom + cellHeight)));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private int cellOf(double px, double py) {
+        return row(py) * cols + col(px);
+    }
+
+    private int col(double px) {
+        return Math.min(cols - 1, (int) ((px - minX) / cellWidth));
+    }
+
+    private int row(double py) {
+        return Math.min(rows - 1, (int) ((py - minY) / cellHeight));
+    }
+}
@@ -11,7 +11,7 @@ import java.util.stream.Collectors;
 
 public class SolutionSpace {
     private List<List<Integer>> solutions;
-    private List<Double> costs;
+    private List<Integer> costs;
     public SolutionSpace(){
         solutions = new ArrayList<>();
         costs = new ArrayList<>();
@@ -22,11 +22,11 @@ public class SolutionSpace {
         costs.add(sol.getTotalCost());
     }
 
-    public double getMin(){
+    public int getMin(){
         return Collections.min(costs);
     }
 
-    public double getMax(){
+    public int getMax(){
         return Collections.max(costs);
     }
 
@@ -52,7 +52,7 @@ public class SolutionSpace {
     }
 
     public List<Double> getAllStats(){
-        return Arrays.asList(getMin(), getMax(), roundToTwoDecimals(getAvg()), roundToTwoDecimals(getSd()));
+        return Arrays.asList((double) getMin(), (double) getMax(), roundToTwoDecimals(getAvg()), roundToTwoDecimals(getSd()));
     }
 
     public String statsToStr(){
@@ -61,7 +61,7 @@ public class SolutionSpace {
     }
 
     public void bestSolutionToCsv(String filePath){
-        double mini = getMin();
+        int mini = getMin();
         List<Integer> bestSol = null;
 
         for(int i = 0; i < solutions.size(); i++){
@@ -81,8 +81,8 @@ public class SolutionSpace {
         }
     }
 
-    public void printBestSolution(List<Node> nodes){
-        double mini = getMin();
+    public void printBestSolution(Instance instance){
+        int mini = getMin();
         List<Integer> bestSol = null;
 
         for(int i = 0; i < solutions.size(); i++){
@@ -93,8 +93,8 @@ public class SolutionSpace {
 
         assert bestSol != null;
         for (int i=0; i < bestSol.size()-1; i++){
-            Node curr_node = nodes.get(bestSol.get(i));
-            Node next_node = nodes.get(bestSol.get(i+1));
+            Node curr_node = instance.getNode(bestSol.get(i));
+            Node next_node = instance.getNode(bestSol.get(i+1));
             System.out.println(STR."Id: \{bestSol.get(i)}, X: \{curr_node.getX()}, Y: \{curr_node.getY()}, " +
                     STR."length: \{Math.sqrt(Math.pow(curr_node.getX() - next_node.getX(), 2) + Math.pow(curr_node.getY() - next_node.getY(), 2))}, " +
                     STR."cost: \{curr_node.getCost()}");
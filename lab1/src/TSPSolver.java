@@ -7,14 +7,14 @@ import java.util.Random;
 
 public class TSPSolver {
 
-    private final double[][] distanceMatrix;
-    private final List<Node> nodes;
+    private final DistanceOracle distances;
+    private final Instance instance;
     private final int targetCount;
 
-    public TSPSolver(double[][] distanceMatrix, List<Node> nodes) {
-        this.distanceMatrix = distanceMatrix;
-        this.nodes = nodes;
-        this.targetCount = Math.max(2, (int) Math.ceil(nodes.size() / 2.0));
+    public TSPSolver(InstanceBundle bundle) {
+        this.distances = bundle.getDistances();
+        this.instance = bundle.getInstance();
+        this.targetCount = Math.max(2, (int) Math.ceil(instance.size() / 2.0));
     }
 
     // ================================
@@ -22,7 +22,7 @@ public class TSPSolver {
     // ================================
     public Result randomSolution() {
         List<Integer> route = new ArrayList<>();
-        for (int i = 0; i < nodes.size(); i++) route.add(i);
+        for (int i = 0; i < instance.size(); i++) route.add(i);
         Collections.shuffle(route, new Random());
 
         // only keep 50% of nodes
@@ -31,7 +31,7 @@ public class TSPSolver {
         // close the cycle
         route.add(route.getFirst());
 
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(new ArrayList<>(route), totalCost);
     }
 
@@ -39,7 +39,7 @@ public class TSPSolver {
     // 2 NEAREST NEIGHBOR (ADD AT END)
     // ================================
     public Result nearestNeighborEnd(int startIndex) {
-        int n = nodes.size();
+        int n = instance.size();
         List<Integer> route = new ArrayList<>();
         boolean[] used = new boolean[n];
         route.add(startIndex);
@@ -47,11 +47,11 @@ public class TSPSolver {
         int current = startIndex;
 
         while (route.size() < targetCount) {
-            double bestDist = Double.MAX_VALUE;
+            int bestDist = Integer.MAX_VALUE;
             int next = -1;
             for (int i = 0; i < n; i++) {
                 if (!used[i]) {
-                    double d = distanceMatrix[current][i] + nodes.get(i).getCost();
+                    int d = arcCost(current, i);
                     if (d < bestDist) {
                         bestDist = d;
                         next = i;
@@ -65,7 +65,7 @@ public class TSPSolver {
         }
 
         route.add(startIndex);
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(route, totalCost);
     }
 
@@ -73,7 +73,7 @@ public class TSPSolver {
     // 3 NEAREST NEIGHBOR (FLEXIBLE INSERTION)
     // ================================
     public Result nearestNeighborFlexible(int startIndex) {
-        int n = nodes.size();
+        int n = instance.size();
         List<Integer> route = new ArrayList<>();
         route.add(startIndex);
         route.add(startIndex); // start and end same (cycle)
@@ -81,7 +81,7 @@ public class TSPSolver {
         used[startIndex] = true;
 
         while (countUsed(used) < targetCount) {
-            double bestIncrease = Double.MAX_VALUE;
+            int bestIncrease = Integer.MAX_VALUE;
             int bestNode = -1;
             int bestPos = -1;
 
@@ -91,7 +91,7 @@ public class TSPSolver {
                     for (int pos = 0; pos < route.size() - 1; pos++) {
                         int a = route.get(pos);
                         int b = route.get(pos + 1);
-                        double increase = distanceMatrix[a][node] + distanceMatrix[node][b] - distanceMatrix[a][b] + nodes.get(node).getCost();
+                        int increase = arcCost(a, node) + distance(node, b) - distance(a, b);
                         if (increase < bestIncrease) {
                             bestIncrease = increase;
                             bestNode = node;
@@ -106,7 +106,7 @@ public class TSPSolver {
             used[bestNode] = true;
         }
 
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(route, totalCost);
     }
 
@@ -114,7 +114,7 @@ public class TSPSolver {
     // 4 GREEDY CYCLE
     // ================================
     public Result greedyCycle(int startIndex) {
-        int n = nodes.size();
+        int n = instance.size();
         int numToSelect = Math.max(2, (int) Math.ceil(n / 2.0));
 
         List<Integer> route = new ArrayList<>();
@@ -123,13 +123,11 @@ public class TSPSolver {
         route.add(startIndex);
 
         int bestSecond = -1;
-        double minObj = Double.MAX_VALUE;
+        int minObj = Integer.MAX_VALUE;
 
         for (int i = 0; i < n; i++) {
             if (!used[i]) {
-                double obj = 2 * distanceMatrix[startIndex][i]
-                        + nodes.get(startIndex).getCost()
-                        + nodes.get(i).getCost();
+                int obj = arcCost(startIndex, i) + arcCost(i, startIndex);
                 if (obj < minObj) {
                     minObj = obj;
                     bestSecond = i;
@@ -147,17 +145,16 @@ public class TSPSolver {
         while (route.size() < numToSelect) {
             int bestNode = -1;
             int bestPos = -1;
-            double bestIncrease = Double.MAX_VALUE;
+            int bestIncrease = Integer.MAX_VALUE;
 
             for (int i = 0; i < n; i++) {
                 if (!used[i]) {
                     for (int j = 0; j < route.size(); j++) {
                         int a = route.get(j);
                         int b = route.get((j + 1) % route.size());
-                        double increase = distanceMatrix[a][i]
-                                + distanceMatrix[i][b]
-                                - distanceMatrix[a][b]
-                                + nodes.get(i).getCost();
+                        int increase = arcCost(a, i)
+                                + distance(i, b)
+                                - distance(a, b);
 
                         if (increase < bestIncrease) {
                             bestIncrease = increase;
@@ -176,7 +173,7 @@ public class TSPSolver {
         }
         route.add(route.getFirst());
 
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(route, totalCost);
     }
 
@@ -192,7 +189,7 @@ public class TSPSolver {
 //    private int closestUnused(int index, boolean[] used) {
 //        double best = Double.MAX_VALUE;
 //        int next = -1;
-//        for (int i = 0; i < nodes.size(); i++) {
+//        for (int i = 0; i < instance.size(); i++) {
 //            if (!used[i] && i != index) {
 //                double d = distanceMatrix[index][i];
 //                if (d < best) {
@@ -204,12 +201,23 @@ public class TSPSolver {
 //        return next == -1 ? index : next;
 //    }
 
-    private double computeTotalCost(List<Integer> route) {
-        double cost = 0.0;
+    /** Rounded Euclidean distance between nodes a and b */
+    private int distance(int a, int b) {
+        return distances.getDistance(a, b);
+    }
+
+    /** Distance from a to b plus the cost of visiting b */
+    private int arcCost(int a, int b) {
+        return distances.getArcCost(a, b);
+    }
+
+    /** Total cost of a closed route (first node repeated at the end) */
+    private int computeTotalCost(List<Integer> route) {
+        int cost = 0;
         for (int i = 0; i < route.size() - 1; i++) {
             int a = route.get(i);
             int b = route.get(i + 1);
-            cost += distanceMatrix[a][b] + nodes.get(a).getCost();
+            cost += arcCost(a, b);
         }
         return cost;
     }
@@ -219,9 +227,9 @@ public class TSPSolver {
     // ================================
     public static class Result {
         private final List<Integer> route;
-        private final double totalCost;
+        private final int totalCost;
 
-        public Result(List<Integer> route, double totalCost) {
+        public Result(List<Integer> route, int totalCost) {
             this.route = route;
             this.totalCost = totalCost;
         }
@@ -230,13 +238,13 @@ public class TSPSolver {
             return route;
         }
 
-        public double getTotalCost() {
+        public int getTotalCost() {
             return totalCost;
         }
 
         @Override
         public String toString() {
-            return "Route: " + route + "\nTotal cost: " + String.format("%.2f", totalCost);
+            return "Route: " + route + "\nTotal cost: " + totalCost;
         }
     }
 }
@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Distance oracle that computes rounded Euclidean distances on the fly from the node
+ * coordinates, for instances too big for an n * n matrix. Memory is linear in n.
+ *
+ * Rows that are read over and over (e.g. the neighbours of a position while scanning all
+ * unselected nodes) are kept in a bounded LRU cache. A row is only materialised after it
+ * has missed n / 4 times since it was last cached, so filling rows never costs more than
+ * about four direct computations per miss. Every thread reading the oracle gets its own
+ * cache, so one oracle can be shared between threads; each cache holds up to cachedRows rows.
+ */
+public class CoordinateDistanceOracle implements DistanceOracle {
+
+    private static final int MIN_FILL_THRESHOLD = 16;
+
+    private final int n;
+    private final int[] x;
+    private final int[] y;
+    private final int[] costs;
+    private final ThreadLocal<RowCache> caches;
+
+    /**
+     * @param x array of x-coordinates
+     * @param y array of y-coordinates
+     * @param costs array of node costs
+     * @param cachedRows maximum number of rows kept in the cache of each thread
+     */
+    public CoordinateDistanceOracle(int[] x, int[] y, int[] costs, int cachedRows) {
+        if (x.length != y.length || x.length != costs.length) {
+            throw new IllegalArgumentException("x, y and costs arrays must have the same length");
+        }
+        if (cachedRows < 0) {
+            throw new IllegalArgumentException("cachedRows must not be negative");
+        }
+        this.n = x.length;
+        this.x = x;
+        this.y = y;
+        this.costs = costs;
+
+        int slots = Math.min(cachedRows, n);
+        int fillThreshold = Math.max(MIN_FILL_THRESHOLD, n / 4);
+        this.caches = ThreadLocal.withInitial(() -> new RowCache(slots, fillThreshold));
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int getDistance(int i, int j) {
+        return caches.get().getDistance(i, j);
+    }
+
+    @Override
+    public int getArcCost(int i, int j) {
+        return getDistance(i, j) + costs[j];
+    }
+
+    /**
+     * Rounded Euclidean distance computed directly from the coordinates
+     */
+    private int compute(int i, int j) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        return (int) Math.round(Math.sqrt(dx * dx + dy * dy));
+    }
+
+    /**
+     * LRU row cache of one thread
+     */
+    private final class RowCache {
+        private final int[][] rows;     // cached rows, one per slot
+        private final int[] rowOfSlot;  // node whose row is stored in a slot, -1 if empty
+        private final long[] lastUsed;  // access stamp of each slot
+        private final int[] slotOfRow;  // slot holding the row of a node, -1 if not cached
+        private final int[] misses;     // misses of each row since it was last cached
+        private final int fillThreshold;
+        private long clock;
+
+        RowCache(int slots, int fillThreshold) {
+            this.rows = new int[slots][];
+            this.rowOfSlot = new int[slots];
+            this.lastUsed = new long[slots];
+            this.slotOfRow = new int[n];
+            this.misses = new int[n];
+            this.fillThreshold = fillThreshold;
+            Arrays.fill(rowOfSlot, -1);
+            Arrays.fill(slotOfRow, -1);
+        }
+
+        int getDistance(int i, int j) {
+            int slot = slotOfRow[i];
+            if (slot < 0) {
+                slot = slotOfRow[j]; // distances are symmetric, so row j works too
+                if (slot < 0) {
+                    if (++misses[i] >= fillThreshold && rows.length > 0) {
+                        return rows[fill(i)][j];
+                    }
+                    return compute(i, j);
+                }
+                lastUsed[slot] = ++clock;
+                return rows[slot][i];
+            }
+            lastUsed[slot] = ++clock;
+            return rows[slot][j];
+        }
+
+        /**
+         * Computes the row of node i into the least recently used slot
+         * @return the slot holding the row
+         */
+        private int fill(int i) {
+            int slot = 0;
+            for (int s = 1; s < rows.length; s++) {
+                if (lastUsed[s] < lastUsed[slot]) slot = s;
+            }
+
+            int evicted = rowOfSlot[slot];
+            if (evicted >= 0) slotOfRow[evicted] = -1;
+            int[] row = rows[slot];
+            if (row == null) {
+                row = new int[n];
+                rows[slot] = row;
+            }
+            for (int j = 0; j < n; j++) {
+                row[j] = compute(i, j);
+            }
+
+            rowOfSlot[slot] = i;
+            slotOfRow[i] = slot;
+            misses[i] = 0;
+            lastUsed[slot] = ++clock;
+            return slot;
+        }
+    }
+}
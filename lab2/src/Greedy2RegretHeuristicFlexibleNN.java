@@ -4,13 +4,13 @@ public class Greedy2RegretHeuristicFlexibleNN extends TSPSolver {
 
     private final double regretWeight;
 
-    public Greedy2RegretHeuristicFlexibleNN(double[][] distanceMatrix, List<Node> nodes, double regretWeight) {
-        super(distanceMatrix, nodes);
+    public Greedy2RegretHeuristicFlexibleNN(InstanceBundle bundle, double regretWeight) {
+        super(bundle);
         this.regretWeight = regretWeight;
     }
 
     public Result solve(int startIndex) {
-        int n = nodes.size();
+        int n = instance.size();
         List<Integer> route = new ArrayList<>();
         boolean[] used = new boolean[n];
 
@@ -23,41 +23,40 @@ public class Greedy2RegretHeuristicFlexibleNN extends TSPSolver {
             int bestNode = -1;
             int bestPos = -1;
             double bestScore = Double.NEGATIVE_INFINITY;
-            double bestDeltaForBestNode = Double.POSITIVE_INFINITY;
+            int bestDeltaForBestNode = Integer.MAX_VALUE;
 
             // evaluate all unused nodes
             for (int j = 0; j < n; j++) {
                 if (used[j]) continue;
 
-                Node curr = nodes.get(j);
-                List<Double> deltas = new ArrayList<>();
+                List<Integer> deltas = new ArrayList<>();
 
                 // compute insertion delta for all possible positions (before first, between, after last)
                 for (int pos = 0; pos <= route.size(); pos++) {
-                    double delta;
+                    int delta;
                     if (pos == 0) {
                         int kNode = route.get(0);
-                        delta = distanceMatrix[j][kNode] + curr.getCost();
+                        delta = arcCost(kNode, j); // symmetric: distance(j, kNode) + cost(j)
                     } else if (pos == route.size()) {
                         int i = route.get(route.size() - 1);
-                        delta = distanceMatrix[i][j] + curr.getCost();
+                        delta = arcCost(i, j);
                     } else {
                         int i = route.get(pos - 1);
                         int kNode = route.get(pos);
-                        delta = distanceMatrix[i][j] + distanceMatrix[j][kNode]
-                                - distanceMatrix[i][kNode] + curr.getCost();
+                        delta = arcCost(i, j) + distance(j, kNode)
+                                - distance(i, kNode);
                     }
                     deltas.add(delta);
                 }
 
                 // sort deltas ascending (smallest = best insertion position)
-                List<Double> sorted = new ArrayList<>(deltas);
+                List<Integer> sorted = new ArrayList<>(deltas);
                 Collections.sort(sorted);
 
                 // take the two best deltas
-                double bestDelta = sorted.get(0);
-                double secondBestDelta = sorted.size() > 1 ? sorted.get(1) : sorted.get(0);
-                double regret = secondBestDelta - bestDelta;
+                int bestDelta = sorted.get(0);
+                int secondBestDelta = sorted.size() > 1 ? sorted.get(1) : sorted.get(0);
+                int regret = secondBestDelta - bestDelta;
 
                 double alpha = regretWeight;
                 double beta = 1.0 - regretWeight;
@@ -80,7 +79,7 @@ public class Greedy2RegretHeuristicFlexibleNN extends TSPSolver {
         // close the route (return to start)
         route.add(route.get(0));
 
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(route, totalCost);
     }
 }
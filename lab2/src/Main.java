@@ -1,7 +1,6 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,7 +13,7 @@ public class Main {
 
     public static void conductExperiments(String fileName){
         String filePath = STR."../data/\{fileName}.csv";
-        List<Node> nodes = new ArrayList<>();
+        Instance instance;
 
         // 4 solution spaces for 4 heuristics
         SolutionSpace WeightedCycleSolutions = new SolutionSpace();
@@ -28,44 +27,29 @@ public class Main {
         long PureFlexibleNNTime = 0;
 
         // Load nodes from CSV
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(";");
-                if (values.length >= 3) {
-                    int x = Integer.parseInt(values[0].trim());
-                    int y = Integer.parseInt(values[1].trim());
-                    int cost = Integer.parseInt(values[2].trim());
-                    nodes.add(new Node(x, y, cost));
-                }
-            }
+        try {
+            instance = InstanceLoader.load(Path.of(filePath));
         } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
 
-        // Create distance matrix
-        int n = nodes.size();
-        double[] x = new double[n];
-        double[] y = new double[n];
-        for (int i = 0; i < n; i++) {
-            x[i] = nodes.get(i).getX();
-            y[i] = nodes.get(i).getY();
-        }
-
-        DistanceMatrix dm = new DistanceMatrix(x, y);
+        int n = instance.size();
+        InstanceBundle bundle = InstanceBundle.loadOrBuild(Path.of(filePath), instance);
+        DistanceOracle dm = bundle.getDistances();
         System.out.println("=== Distance Matrix ===");
         dm.printMatrix();
 
         // --- Instantiate heuristics ---
         Greedy2RegretHeuristicCycle WeightedCycleHeuristic =
-                new Greedy2RegretHeuristicCycle(dm.getMatrix(), nodes, 2, 0.5);
+                new Greedy2RegretHeuristicCycle(bundle, 2, 0.5);
         Greedy2RegretHeuristicCycle PureCycleHeuristic =
-                new Greedy2RegretHeuristicCycle(dm.getMatrix(), nodes, 2, 1.0);
+                new Greedy2RegretHeuristicCycle(bundle, 2, 1.0);
 
         Greedy2RegretHeuristicFlexibleNN WeightedFlexibleNNHeuristic =
-                new Greedy2RegretHeuristicFlexibleNN(dm.getMatrix(), nodes, 0.5);
+                new Greedy2RegretHeuristicFlexibleNN(bundle, 0.5);
         Greedy2RegretHeuristicFlexibleNN PureFlexibleNNHeuristic =
-                new Greedy2RegretHeuristicFlexibleNN(dm.getMatrix(), nodes, 1.0);
+                new Greedy2RegretHeuristicFlexibleNN(bundle, 1.0);
 
         // --- Run all heuristics ---
         for (int i = 0; i < n; i++) {
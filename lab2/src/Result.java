@@ -3,9 +3,9 @@ import java.util.List;
 
 public class Result {
     private final List<Integer> route;
-    private final double totalCost;
+    private final int totalCost;
 
-    public Result(List<Integer> route, double totalCost) {
+    public Result(List<Integer> route, int totalCost) {
         this.route = route;
         this.totalCost = totalCost;
     }
@@ -14,12 +14,12 @@ public class Result {
         return route;
     }
 
-    public double getTotalCost() {
+    public int getTotalCost() {
         return totalCost;
     }
 
     @Override
     public String toString() {
-        return "Route: " + route + "\nTotal cost: " + String.format("%.2f", totalCost);
+        return "Route: " + route + "\nTotal cost: " + totalCost;
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+import java.util.stream.IntStream;
+
+/**
+ * Distance matrix with compact storage, for instances where the fused DistanceMatrix
+ * (two n * n int arrays) no longer fits in cache.
+ *
+ * The layout is either the full n * n matrix or only its upper triangle, since distances
+ * are symmetric. Distances are stored exactly as 16-bit values when the largest possible
+ * one (the diagonal of the bounding box) fits, and as ints otherwise. Arc costs are not
+ * fused but computed as distance(i, j) + cost(j).
+ */
+public class CompactDistanceMatrix implements DistanceOracle {
+
+    public enum Layout {
+        FULL,       // n * n entries, distance(i, j) at i * n + j
+        TRIANGULAR  // n * (n - 1) / 2 entries, distance(a, b) with a < b at rowStart[a] + b
+    }
+
+    private final int n;
+    private final Layout layout;
+    private final int[] rowStart; // triangular layout only
+    private final char[] shorts;  // distances if they all fit in 16 bits, otherwise null
+    private final int[] ints;     // distances otherwise, null if shorts is used
+    private final int[] costs;
+
+    /**
+     * Constructor: generates the distances in the given layout, using 16-bit storage if possible
+     * @param x array of x-coordinates
+     * @param y array of y-coordinates
+     * @param costs array of node costs
+     * @param layout full or upper-triangular storage
+     */
+    public CompactDistanceMatrix(double[] x, double[] y, int[] costs, Layout layout) {
+        if (x.length != y.length || x.length != costs.length) {
+            throw new IllegalArgumentException("x, y and costs arrays must have the same length");
+        }
+        this.n = x.length;
+        this.layout = layout;
+        this.costs = costs;
+
+        long entries = layout == Layout.FULL ? (long) n * n : (long) n * (n - 1) / 2;
+        if (entries > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many points for a " + layout + " distance matrix: " + n);
+        }
+        if (layout == Layout.TRIANGULAR) {
+            rowStart = new int[n];
+            for (int a = 0; a < n; a++) {
+                // entries before row a, minus the a + 1 columns the row does not store
+                rowStart[a] = (int) ((long) a * n - (long) a * (a + 1) / 2 - a - 1);
+            }
+        } else {
+            rowStart = null;
+        }
+        if (maxDistance(x, y) <= Character.MAX_VALUE) {
+            shorts = new char[(int) entries];
+            ints = null;
+        } else {
+            shorts = null;
+            ints = new int[(int) entries];
+        }
+
+        IntStream rows = IntStream.range(0, n);
+        if (n >= DistanceMatrix.PARALLEL_THRESHOLD) {
+            rows = rows.parallel();
+        }
+        rows.forEach(i -> {
+            if (layout == Layout.FULL) {
+                computeRow(i, 0, i * n, x, y);
+            } else {
+                computeRow(i, i + 1, rowStart[i], x, y);
+            }
+        });
+    }
+
+    /**
+     * Computes the distances from point i to points from..n-1 into entries offset+from..offset+n-1
+     */
+    private void computeRow(int i, int from, int offset, double[] x, double[] y) {
+        double xi = x[i];
+        double yi = y[i];
+        for (int j = from; j < n; j++) {
+            double dx = xi - x[j];
+            double dy = yi - y[j];
+            int distance = (int) Math.round(Math.sqrt(dx * dx + dy * dy));
+            if (shorts != null) {
+                shorts[offset + j] = (char) distance;
+            } else {
+                ints[offset + j] = distance;
+            }
+        }
+    }
+
+    /**
+     * Upper bound on the rounded distances: the diagonal of the bounding box
+     */
+    private static long maxDistance(double[] x, double[] y) {
+        if (x.length == 0) return 0;
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < x.length; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        return Math.round(Math.hypot(maxX - minX, maxY - minY));
+    }
+
+    /**
+     * Returns the storage layout
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns whether the distances are stored as 16-bit values
+     */
+    public boolean isShort() {
+        return shorts != null;
+    }
+
+    /**
+     * Returns the number of bytes used by the distances
+     */
+    public long byteSize() {
+        return shorts != null ? (long) shorts.length * Character.BYTES : (long) ints.length * Integer.BYTES;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int getDistance(int i, int j) {
+        int index;
+        if (layout == Layout.FULL) {
+            index = i * n + j;
+        } else if (i < j) {
+            index = rowStart[i] + j;
+        } else if (j < i) {
+            index = rowStart[j] + i;
+        } else {
+            return 0;
+        }
+        return shorts != null ? shorts[index] : ints[index];
+    }
+
+    @Override
+    public int getArcCost(int i, int j) {
+        return getDistance(i, j) + costs[j];
+    }
+}
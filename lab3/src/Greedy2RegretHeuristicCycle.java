@@ -5,14 +5,14 @@ public class Greedy2RegretHeuristicCycle extends TSPSolver {
     private final double regretWeight;
     private final int k; // how many top deltas to use for regret (in our case 2)
 
-    public Greedy2RegretHeuristicCycle(double[][] distanceMatrix, List<Node> nodes, int k, double regretWeight) {
-        super(distanceMatrix, nodes);
+    public Greedy2RegretHeuristicCycle(InstanceBundle bundle, int k, double regretWeight) {
+        super(bundle);
         this.k = k;
         this.regretWeight = regretWeight;
     }
 
     public Result solve(int startIndex) {
-        int n = nodes.size();
+        int n = instance.size();
         List<Integer> route = new ArrayList<>();
         boolean[] used = new boolean[n];
 
@@ -21,10 +21,10 @@ public class Greedy2RegretHeuristicCycle extends TSPSolver {
         used[startIndex] = true;
 
         int bestSecond = -1;
-        double bestVal = Double.POSITIVE_INFINITY;
+        int bestVal = Integer.MAX_VALUE;
         for (int j = 0; j < n; j++) {
             if (used[j]) continue;
-            double val = distanceMatrix[startIndex][j] + nodes.get(j).getCost();
+            int val = arcCost(startIndex, j);
             if (val < bestVal) {
                 bestVal = val;
                 bestSecond = j;
@@ -42,23 +42,22 @@ public class Greedy2RegretHeuristicCycle extends TSPSolver {
 
             for (int j = 0; j < n; j++) {
                 if (used[j]) continue;
-                Node curr = nodes.get(j);
-                List<Double> deltas = new ArrayList<>();
+                List<Integer> deltas = new ArrayList<>();
 
                 // include wrap-around edge
                 for (int pos = 0; pos < route.size(); pos++) {
                     int i = route.get(pos);
                     int kNode = route.get((pos + 1) % route.size());
-                    double delta = distanceMatrix[i][j] + distanceMatrix[j][kNode]
-                            - distanceMatrix[i][kNode] + curr.getCost();
+                    int delta = arcCost(i, j) + distance(j, kNode)
+                            - distance(i, kNode);
                     deltas.add(delta);
                 }
 
-                List<Double> sorted = new ArrayList<>(deltas);
+                List<Integer> sorted = new ArrayList<>(deltas);
                 Collections.sort(sorted);
 
-                double bestDelta = sorted.get(0);
-                double regret = 0.0;
+                int bestDelta = sorted.get(0);
+                int regret = 0;
                 for (int m = 1; m < Math.min(k, sorted.size()); m++) {
                     regret += (sorted.get(m) - bestDelta);
                 }
@@ -76,7 +75,7 @@ public class Greedy2RegretHeuristicCycle extends TSPSolver {
             used[bestNode] = true;
         }
         route.add(startIndex);
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(route, totalCost);
     }
 
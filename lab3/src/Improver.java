@@ -0,0 +1,14 @@
+import java.util.List;
+
+/**
+ * A local search that improves a given route. MSLS, ILS and LargeNeighborhoodSearch run any
+ * Improver, so the descent inside them can be swapped without touching the metaheuristic.
+ */
+public interface Improver {
+
+    /**
+     * @param initialRoute the start route, open (without the first node repeated)
+     * @return the improved route, closed, with its cost
+     */
+    Result solve(List<Integer> initialRoute);
+}
@@ -1,7 +1,6 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class Main {
@@ -12,45 +11,31 @@ public class Main {
 
     public static void conductExperiments(String fileName) {
         String filePath = STR."../data/\{fileName}.csv";
-        List<Node> nodes = new ArrayList<>();
+        Instance instance;
 
         // --- Load nodes from CSV ---
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(";");
-                if (values.length >= 3) {
-                    int x = Integer.parseInt(values[0].trim());
-                    int y = Integer.parseInt(values[1].trim());
-                    int cost = Integer.parseInt(values[2].trim());
-                    nodes.add(new Node(x, y, cost));
-                }
-            }
+        try {
+            instance = InstanceLoader.load(Path.of(filePath));
         } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
 
-        int n = nodes.size();
-        double[] x = new double[n];
-        double[] y = new double[n];
-        for (int i = 0; i < n; i++) {
-            x[i] = nodes.get(i).getX();
-            y[i] = nodes.get(i).getY();
-        }
-
-        DistanceMatrix dm = new DistanceMatrix(x, y);
+        int n = instance.size();
+        InstanceBundle bundle = InstanceBundle.loadOrBuild(Path.of(filePath), instance);
+        DistanceOracle dm = bundle.getDistances();
         System.out.println(STR."=== Distance Matrix for \{fileName} ===");
         dm.printMatrix();
 
         // --- Heuristic for initialization ---
         Greedy2RegretHeuristicFlexibleNN WeightedFlexibleNNHeuristic =
-                new Greedy2RegretHeuristicFlexibleNN(dm.getMatrix(), nodes, 0.5);
+                new Greedy2RegretHeuristicFlexibleNN(bundle, 0.5);
 
         // --- Local Search Variants ---
-        LocalSearch steepestNode = new LocalSearch(dm.getMatrix(), nodes, true, true);
-        LocalSearch steepestEdge = new LocalSearch(dm.getMatrix(), nodes, true, false);
-        LocalSearch greedyNode = new LocalSearch(dm.getMatrix(), nodes, false, true);
-        LocalSearch greedyEdge = new LocalSearch(dm.getMatrix(), nodes, false, false);
+        LocalSearch steepestNode = new LocalSearch(bundle, true, true);
+        LocalSearch steepestEdge = new LocalSearch(bundle, true, false);
+        LocalSearch greedyNode = new LocalSearch(bundle, false, true);
+        LocalSearch greedyEdge = new LocalSearch(bundle, false, false);
 
         // --- Solution spaces for all 8 LS methods ---
         Map<String, SolutionSpace> localSearchSpaces = new LinkedHashMap<>();
@@ -0,0 +1,166 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A cycle over a subset of the nodes, stored as the visiting order plus the position of every
+ * node in it, so membership, position, successor and predecessor queries are O(1).
+ *
+ * Indices are positions in the cycle (0..size-1), nodes are instance node numbers
+ * (0..nodeCount-1). The route is kept open: the first node is not repeated at the end.
+ * As a Tour, flip reverses an array range, O(n); see TwoLevelTour for large instances.
+ */
+public class Route implements Tour {
+    private final int[] order; // order[i] = node at position i, valid for i < size
+    private final int[] pos;   // pos[node] = position of node, -1 if the node is not in the route
+    private final int size;
+
+    /**
+     * @param nodes the route, either open or closed (first node repeated at the end)
+     * @param nodeCount number of nodes in the instance
+     */
+    public Route(List<Integer> nodes, int nodeCount) {
+        int length = nodes.size();
+        if (length > 1 && nodes.get(0).equals(nodes.get(length - 1))) {
+            length--;
+        }
+        this.size = length;
+        this.order = new int[length];
+        this.pos = new int[nodeCount];
+        Arrays.fill(pos, -1);
+        for (int i = 0; i < length; i++) {
+            int node = nodes.get(i);
+            if (pos[node] != -1) {
+                throw new IllegalArgumentException(STR."node \{node} appears twice in the route");
+            }
+            order[i] = node;
+            pos[node] = i;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the node at position i
+     */
+    public int get(int i) {
+        return order[i];
+    }
+
+    /**
+     * Returns the position of a node, or -1 if it is not in the route
+     */
+    public int indexOf(int node) {
+        return pos[node];
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return pos[node] != -1;
+    }
+
+    /**
+     * Returns the node after the one at position i, wrapping around
+     */
+    public int getNext(int i) {
+        return order[i + 1 == size ? 0 : i + 1];
+    }
+
+    /**
+     * Returns the node before the one at position i, wrapping around
+     */
+    public int getPrev(int i) {
+        return order[i == 0 ? size - 1 : i - 1];
+    }
+
+    @Override
+    public int first() {
+        return order[0];
+    }
+
+    @Override
+    public int next(int node) {
+        return getNext(pos[node]);
+    }
+
+    @Override
+    public int prev(int node) {
+        return getPrev(pos[node]);
+    }
+
+    @Override
+    public boolean between(int a, int b, int c) {
+        int pa = pos[a], pb = pos[b], pc = pos[c];
+        return pa <= pc ? pa <= pb && pb <= pc : pb >= pa || pb <= pc;
+    }
+
+    @Override
+    public void flip(int a, int b, int c, int d) {
+        int length = pos[c] - pos[b] + 1;
+        if (length <= 0) length += size;
+        if (length <= size - length) {
+            reverse(pos[b], pos[c]);
+        } else {
+            reverse(pos[d], pos[a]);
+        }
+    }
+
+    @Override
+    public void replace(int oldNode, int newNode) {
+        set(pos[oldNode], newNode);
+    }
+
+    @Override
+    public void swapNodes(int u, int v) {
+        swap(pos[u], pos[v]);
+    }
+
+    /**
+     * Replaces the node at position i by a node that is not in the route
+     */
+    public void set(int i, int node) {
+        pos[order[i]] = -1;
+        order[i] = node;
+        pos[node] = i;
+    }
+
+    /**
+     * Swaps the nodes at positions i and j
+     */
+    public void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        pos[b] = i;
+        pos[a] = j;
+    }
+
+    /**
+     * Reverses the segment from position start to position end (inclusive). If start > end the
+     * segment wraps around the end of the order: start..size-1 followed by 0..end.
+     */
+    public void reverse(int start, int end) {
+        int length = start <= end ? end - start + 1 : size - start + end + 1;
+        for (int k = 0; k < length / 2; k++) {
+            swap(start, end);
+            start = start + 1 == size ? 0 : start + 1;
+            end = end == 0 ? size - 1 : end - 1;
+        }
+    }
+
+    @Override
+    public List<Integer> toClosedList() {
+        List<Integer> list = new ArrayList<>(size + 1);
+        for (int i = 0; i < size; i++) {
+            list.add(order[i]);
+        }
+        if (size > 0) {
+            list.add(order[0]);
+        }
+        return list;
+    }
+}
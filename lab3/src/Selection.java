@@ -0,0 +1,134 @@
+import java.util.List;
+
+/**
+ * Which nodes are selected (in the route) and which are not, kept as a bitset plus one packed
+ * array holding the selected nodes followed by the unselected ones. Selecting, deselecting
+ * and exchanging a node are O(1) swaps across the boundary of the two parts.
+ *
+ * The packed arrays give O(1) counts and random picks; nextSelected and nextUnselected walk
+ * the bitset a word at a time, in increasing node order.
+ */
+public final class Selection {
+    private final int nodeCount;
+    private final long[] bits;  // bit node is set iff node is selected
+    private final int[] nodes;  // selected nodes in nodes[0..selectedCount), unselected after
+    private final int[] index;  // index[node] = place of node in nodes
+    private int selectedCount;
+
+    /**
+     * Selects the nodes of a route; the unselected nodes start out in increasing order
+     * @param route the route, either open or closed (first node repeated at the end)
+     * @param nodeCount number of nodes in the instance
+     */
+    public Selection(List<Integer> route, int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.bits = new long[(nodeCount + 63) >>> 6];
+        this.nodes = new int[nodeCount];
+        this.index = new int[nodeCount];
+        for (int node : route) {
+            if (!isSelected(node)) {
+                bits[node >>> 6] |= 1L << node;
+                index[node] = selectedCount;
+                nodes[selectedCount++] = node;
+            }
+        }
+        int k = selectedCount;
+        for (int node = nextUnselected(0); node >= 0; node = nextUnselected(node + 1)) {
+            index[node] = k;
+            nodes[k++] = node;
+        }
+    }
+
+    public boolean isSelected(int node) {
+        return (bits[node >>> 6] & (1L << node)) != 0;
+    }
+
+    public int selectedCount() {
+        return selectedCount;
+    }
+
+    public int unselectedCount() {
+        return nodeCount - selectedCount;
+    }
+
+    /**
+     * Returns the k-th selected node (0 <= k < selectedCount), in no particular order
+     */
+    public int getSelected(int k) {
+        return nodes[k];
+    }
+
+    /**
+     * Returns the k-th unselected node (0 <= k < unselectedCount), in no particular order
+     */
+    public int getUnselected(int k) {
+        return nodes[selectedCount + k];
+    }
+
+    public void select(int node) {
+        if (isSelected(node)) return;
+        moveTo(node, selectedCount++);
+        bits[node >>> 6] |= 1L << node;
+    }
+
+    public void deselect(int node) {
+        if (!isSelected(node)) return;
+        moveTo(node, --selectedCount);
+        bits[node >>> 6] &= ~(1L << node);
+    }
+
+    /**
+     * Deselects a selected node and selects an unselected one, which swap places in the
+     * packed array
+     */
+    public void exchange(int selectedNode, int unselectedNode) {
+        int i = index[selectedNode];
+        int j = index[unselectedNode];
+        nodes[i] = unselectedNode;
+        nodes[j] = selectedNode;
+        index[unselectedNode] = i;
+        index[selectedNode] = j;
+        bits[selectedNode >>> 6] &= ~(1L << selectedNode);
+        bits[unselectedNode >>> 6] |= 1L << unselectedNode;
+    }
+
+    /**
+     * Returns the smallest selected node >= from, or -1 if there is none
+     */
+    public int nextSelected(int from) {
+        return next(from, 0L);
+    }
+
+    /**
+     * Returns the smallest unselected node >= from, or -1 if there is none
+     */
+    public int nextUnselected(int from) {
+        return next(from, -1L);
+    }
+
+    private int next(int from, long flip) {
+        if (from >= nodeCount) return -1;
+        int w = from >>> 6;
+        long word = (bits[w] ^ flip) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int node = (w << 6) + Long.numberOfTrailingZeros(word);
+                return node < nodeCount ? node : -1;
+            }
+            if (++w == bits.length) return -1;
+            word = bits[w] ^ flip;
+        }
+    }
+
+    /**
+     * Swaps node with the node at place k of the packed array
+     */
+    private void moveTo(int node, int k) {
+        int other = nodes[k];
+        int i = index[node];
+        nodes[i] = other;
+        index[other] = i;
+        nodes[k] = node;
+        index[node] = k;
+    }
+}
@@ -0,0 +1,288 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tour as a two-level list: the nodes are split into blocks of about sqrt(n) consecutive tour
+ * nodes, each a slice of one shared array with a reversal bit, and the blocks form a doubly
+ * linked cycle. next, prev and between are O(1); flip splits at most two blocks so the path
+ * to reverse consists of whole blocks, then reverses the order of those blocks and toggles
+ * their bits, O(sqrt(n)). Splitting adds blocks, so after about sqrt(n) flips the blocks are
+ * rebuilt from the tour order (O(n)), which keeps flip at amortized O(sqrt(n)).
+ */
+public class TwoLevelTour implements Tour {
+
+    private final int size;
+    private final int blockSize;  // size of the blocks after a rebuild
+    private final int maxBlocks;  // rebuild before a flip could exceed this
+
+    private final int[] order;    // block b holds the nodes order[lo[b]..hi[b])
+    private final int[] slot;     // slot[node] = index of node in order, -1 if not in the tour
+    private final int[] blockOf;  // blockOf[node] = block holding node
+
+    private final int[] lo;
+    private final int[] hi;
+    private final boolean[] reversed; // tour runs through the block from hi - 1 down to lo
+    private final int[] nextBlock;
+    private final int[] prevBlock;
+    private final int[] rank;         // position of the block in the cycle, counted from block 0
+    private final int[] run;          // blocks of the path being reversed
+    private int blockCount;
+
+    /**
+     * @param nodes the tour, either open or closed (first node repeated at the end)
+     * @param nodeCount number of nodes in the instance
+     */
+    public TwoLevelTour(List<Integer> nodes, int nodeCount) {
+        int length = nodes.size();
+        if (length > 1 && nodes.get(0).equals(nodes.get(length - 1))) {
+            length--;
+        }
+        this.size = length;
+        this.blockSize = Math.max(1, (int) Math.ceil(Math.sqrt(length)));
+        this.maxBlocks = 2 * ((length + blockSize - 1) / blockSize) + 2;
+
+        this.order = new int[length];
+        this.slot = new int[nodeCount];
+        this.blockOf = new int[nodeCount];
+        Arrays.fill(slot, -1);
+        for (int i = 0; i < length; i++) {
+            int node = nodes.get(i);
+            if (slot[node] != -1) {
+                throw new IllegalArgumentException(STR."node \{node} appears twice in the tour");
+            }
+            order[i] = node;
+            slot[node] = i;
+        }
+
+        this.lo = new int[maxBlocks];
+        this.hi = new int[maxBlocks];
+        this.reversed = new boolean[maxBlocks];
+        this.nextBlock = new int[maxBlocks];
+        this.prevBlock = new int[maxBlocks];
+        this.rank = new int[maxBlocks];
+        this.run = new int[maxBlocks];
+        split(order);
+    }
+
+    /**
+     * Stores the nodes in the given tour order and cuts them into blocks of blockSize
+     */
+    private void split(int[] tourOrder) {
+        blockCount = (size + blockSize - 1) / blockSize;
+        for (int i = 0; i < size; i++) {
+            int node = tourOrder[i];
+            order[i] = node;
+            slot[node] = i;
+            blockOf[node] = i / blockSize;
+        }
+        for (int b = 0; b < blockCount; b++) {
+            lo[b] = b * blockSize;
+            hi[b] = Math.min(size, lo[b] + blockSize);
+            reversed[b] = false;
+            nextBlock[b] = b + 1 == blockCount ? 0 : b + 1;
+            prevBlock[b] = b == 0 ? blockCount - 1 : b - 1;
+            rank[b] = b;
+        }
+    }
+
+    /**
+     * Rebuilds the blocks from the current tour order
+     */
+    private void rebuild() {
+        int[] tourOrder = new int[size];
+        int node = first();
+        for (int i = 0; i < size; i++) {
+            tourOrder[i] = node;
+            node = next(node);
+        }
+        split(tourOrder);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return slot[node] != -1;
+    }
+
+    @Override
+    public int first() {
+        return firstOf(0);
+    }
+
+    @Override
+    public int next(int node) {
+        int b = blockOf[node];
+        int s = slot[node];
+        if (!reversed[b]) {
+            return s + 1 < hi[b] ? order[s + 1] : firstOf(nextBlock[b]);
+        }
+        return s > lo[b] ? order[s - 1] : firstOf(nextBlock[b]);
+    }
+
+    @Override
+    public int prev(int node) {
+        int b = blockOf[node];
+        int s = slot[node];
+        if (!reversed[b]) {
+            return s > lo[b] ? order[s - 1] : lastOf(prevBlock[b]);
+        }
+        return s + 1 < hi[b] ? order[s + 1] : lastOf(prevBlock[b]);
+    }
+
+    @Override
+    public boolean between(int a, int b, int c) {
+        long ka = key(a), kb = key(b), kc = key(c);
+        return ka <= kc ? ka <= kb && kb <= kc : kb >= ka || kb <= kc;
+    }
+
+    @Override
+    public void flip(int a, int b, int c, int d) {
+        if (blockCount + 2 > maxBlocks) {
+            rebuild();
+        }
+        // afterwards the paths b..c and d..a both consist of whole blocks
+        splitBefore(b);
+        splitBefore(d);
+
+        int length = 0;
+        for (int blk = blockOf[b]; ; blk = nextBlock[blk]) {
+            length += hi[blk] - lo[blk];
+            if (blk == blockOf[c]) break;
+        }
+        if (length <= size - length) {
+            reverseBlocks(blockOf[b], blockOf[c]);
+        } else {
+            reverseBlocks(blockOf[d], blockOf[a]);
+        }
+    }
+
+    @Override
+    public void replace(int oldNode, int newNode) {
+        int s = slot[oldNode];
+        order[s] = newNode;
+        slot[newNode] = s;
+        blockOf[newNode] = blockOf[oldNode];
+        slot[oldNode] = -1;
+    }
+
+    @Override
+    public void swapNodes(int u, int v) {
+        int su = slot[u], sv = slot[v];
+        int bu = blockOf[u], bv = blockOf[v];
+        order[su] = v;
+        order[sv] = u;
+        slot[u] = sv;
+        slot[v] = su;
+        blockOf[u] = bv;
+        blockOf[v] = bu;
+    }
+
+    @Override
+    public List<Integer> toClosedList() {
+        List<Integer> list = new ArrayList<>(size + 1);
+        if (size == 0) return list;
+        int node = first();
+        for (int i = 0; i < size; i++) {
+            list.add(node);
+            node = next(node);
+        }
+        list.add(list.get(0));
+        return list;
+    }
+
+    private int firstOf(int b) {
+        return reversed[b] ? order[hi[b] - 1] : order[lo[b]];
+    }
+
+    private int lastOf(int b) {
+        return reversed[b] ? order[lo[b]] : order[hi[b] - 1];
+    }
+
+    /**
+     * Position of a node along the cycle, counted from the start of block 0
+     */
+    private long key(int node) {
+        int b = blockOf[node];
+        int offset = reversed[b] ? hi[b] - 1 - slot[node] : slot[node] - lo[b];
+        return (long) rank[b] * size + offset;
+    }
+
+    /**
+     * Splits the block of x so that x is the first node of its block. The smaller part gets
+     * the new block, so only that part's nodes need their block updated.
+     */
+    private void splitBefore(int x) {
+        int b = blockOf[x];
+        int s = slot[x];
+        if (x == firstOf(b)) return;
+
+        // slices of the part before x and the part from x on, in tour order
+        int headLo, headHi, tailLo, tailHi;
+        if (!reversed[b]) {
+            headLo = lo[b]; headHi = s;
+            tailLo = s; tailHi = hi[b];
+        } else {
+            headLo = s + 1; headHi = hi[b];
+            tailLo = lo[b]; tailHi = s + 1;
+        }
+
+        int nb = blockCount++;
+        reversed[nb] = reversed[b];
+        if (headHi - headLo <= tailHi - tailLo) {
+            lo[nb] = headLo; hi[nb] = headHi;
+            lo[b] = tailLo; hi[b] = tailHi;
+            link(prevBlock[b], nb);
+            link(nb, b);
+        } else {
+            lo[nb] = tailLo; hi[nb] = tailHi;
+            lo[b] = headLo; hi[b] = headHi;
+            link(nb, nextBlock[b]);
+            link(b, nb);
+        }
+        for (int i = lo[nb]; i < hi[nb]; i++) {
+            blockOf[order[i]] = nb;
+        }
+        renumber();
+    }
+
+    /**
+     * Reverses the path of whole blocks from block first to block last
+     */
+    private void reverseBlocks(int first, int last) {
+        int before = prevBlock[first];
+        int after = nextBlock[last];
+        int count = 0;
+        for (int blk = first; ; blk = nextBlock[blk]) {
+            run[count++] = blk;
+            if (blk == last) break;
+        }
+
+        int prev = before;
+        for (int k = count - 1; k >= 0; k--) {
+            int blk = run[k];
+            reversed[blk] = !reversed[blk];
+            link(prev, blk);
+            prev = blk;
+        }
+        link(prev, after);
+        renumber();
+    }
+
+    private void link(int from, int to) {
+        nextBlock[from] = to;
+        prevBlock[to] = from;
+    }
+
+    private void renumber() {
+        int blk = 0;
+        for (int r = 0; r < blockCount; r++) {
+            rank[blk] = r;
+            blk = nextBlock[blk];
+        }
+    }
+}
@@ -3,40 +3,67 @@ import java.util.*;
 public class CandidateMovesLocalSearch extends TSPSolver{
     private final int topN;
     private final boolean useNodeExchange;
+    private final boolean useTwoLevelTour;
+    private final boolean useDontLookBits;
+    private final boolean useThreeOpt;
     private final List<List<Integer>> candidateEdges;
-    public CandidateMovesLocalSearch(double[][] distanceMatrix, List<Node> nodes, boolean useNodeExchange){
-        super(distanceMatrix, nodes);
+
+    // 3-opt moves whose delta was computed / that were applied, over all solve calls
+    private long threeOptEvaluated;
+    private long threeOptApplied;
+
+    public CandidateMovesLocalSearch(InstanceBundle bundle, boolean useNodeExchange){
+        this(bundle, useNodeExchange, false);
+    }
+
+    /**
+     * @param useTwoLevelTour keep the route in a TwoLevelTour (2-opt in O(sqrt(n))) instead of
+     *                        an array Route (2-opt in O(n)); both give the same result
+     */
+    public CandidateMovesLocalSearch(InstanceBundle bundle, boolean useNodeExchange, boolean useTwoLevelTour){
+        this(bundle, useNodeExchange, useTwoLevelTour, false);
+    }
+
+    /**
+     * @param useDontLookBits search only around queued nodes (see DontLookBits), taking the
+     *                        best candidate move around the polled node
+     */
+    public CandidateMovesLocalSearch(InstanceBundle bundle, boolean useNodeExchange, boolean useTwoLevelTour,
+                                     boolean useDontLookBits){
+        this(bundle, useNodeExchange, useTwoLevelTour, useDontLookBits, false);
+    }
+
+    /**
+     * @param useThreeOpt add 3-opt moves to the intra-route moves (see bestThreeOptFrom)
+     */
+    public CandidateMovesLocalSearch(InstanceBundle bundle, boolean useNodeExchange, boolean useTwoLevelTour,
+                                     boolean useDontLookBits, boolean useThreeOpt){
+        super(bundle);
         this.topN = 10;
         this.useNodeExchange = useNodeExchange;
+        this.useTwoLevelTour = useTwoLevelTour;
+        this.useDontLookBits = useDontLookBits;
+        this.useThreeOpt = useThreeOpt;
         this.candidateEdges = getCandidateEdges();
     }
 
-    private List<List<Integer>> getCandidateEdges() {
-        List<List<Integer>> candidates = new ArrayList<>();
-
-        for (int i = 0; i < nodes.size(); i++) {
-            double[] costs = new double[nodes.size()];
-            for (int j = 0; j < nodes.size(); j++) {
-                if (i == j) {
-                    costs[j] = Double.POSITIVE_INFINITY;
-                } else {
-                    double edgeLength = distanceMatrix[i][j];
-                    double vertexCost = nodes.get(j).getCost();
-                    costs[j] = edgeLength + vertexCost;
-                }
-            }
+    public long getThreeOptEvaluatedCount() {
+        return threeOptEvaluated;
+    }
 
-            Integer[] indices = new Integer[nodes.size()];
-            for (int j = 0; j < nodes.size(); j++) indices[j] = j;
-            Arrays.sort(indices, Comparator.comparingDouble(j -> costs[j]));
+    public long getThreeOptAppliedCount() {
+        return threeOptApplied;
+    }
 
-            List<Integer> nearest = new ArrayList<>();
-            for (int t = 0; t < Math.min(topN, nodes.size() - 1); t++) {
-                nearest.add(indices[t]);
-            }
-            candidates.add(nearest);
+    private List<List<Integer>> getCandidateEdges() {
+        // the bundle already holds every node's neighbors sorted by arc cost (topN <= NEIGHBORS)
+        List<List<Integer>> candidates = new ArrayList<>();
+        for (int i = 0; i < instance.size(); i++) {
+            int[] nearest = bundle.getNeighbors(i);
+            List<Integer> list = new ArrayList<>(topN);
+            for (int t = 0; t < Math.min(topN, nearest.length); t++) list.add(nearest[t]);
+            candidates.add(list);
         }
-
         return candidates;
     }
 
@@ -44,82 +71,105 @@ public class CandidateMovesLocalSearch extends TSPSolver{
         boolean improved;
         int iteration = 0;
 
-        List<Integer> route = new ArrayList<>(initialRoute);
-        if (route.size() > 1 && route.get(0).equals(route.get(route.size() - 1))) {
-            route.remove(route.size() - 1);
+        Tour route = useTwoLevelTour
+                ? new TwoLevelTour(initialRoute, instance.size())
+                : new Route(initialRoute, instance.size());
+        int currentCost = computeTotalCost(route);
+
+        DontLookBits dontLookBits = null;
+        if (useDontLookBits) {
+            dontLookBits = new DontLookBits(instance.size());
+            for (int a = 0; a < instance.size(); a++) {
+                if (route.contains(a)) dontLookBits.activate(a);
+            }
         }
-        double currentCost = computeTotalCost(closed(route));
 
         do {
             improved = false;
             Move bestMove = null;
-            double bestDelta = 0.0;
+            int bestDelta = 0;
 
-            // Compose full neighborhood (intra + inter)
-            List<Move> neighborhood = generateNeighborhood(route);
+            if (useDontLookBits) {
+                // Poll queued nodes until one has an improving move around it
+                while (bestMove == null && !dontLookBits.isEmpty()) {
+                    int node = dontLookBits.poll();
+                    if (route.contains(node)) bestMove = bestMoveAround(route, node);
+                }
+                if (bestMove != null) {
+                    bestDelta = computeDelta(route, bestMove);
+                    activateTouched(route, dontLookBits, bestMove);
+                }
+            } else {
+                // Compose full neighborhood (intra + inter)
+                List<Move> neighborhood = generateNeighborhood(route);
+
+                for (Move move : neighborhood) {
+                    int delta = computeDelta(route, move);
+                    if (delta < 0) {
+                        if (bestMove == null || delta < bestDelta) {
+                            bestMove = move;
+                            bestDelta = delta;
+                        }
+                    }
+                }
 
-            for (Move move : neighborhood) {
-                double delta = computeDelta(route, move);
-                if (delta < -1e-9) {
-                    if (bestMove == null || delta < bestDelta) {
-                        bestMove = move;
-                        bestDelta = delta;
+                if (useThreeOpt) {
+                    for (int a = 0; a < instance.size(); a++) {
+                        if (!route.contains(a)) continue;
+                        Move move = bestThreeOptFrom(route, a, bestDelta);
+                        if (move != null) {
+                            bestMove = move;
+                            bestDelta = computeDelta(route, move);
+                        }
                     }
                 }
             }
 
             if (bestMove != null) {
+                if (bestMove.type == MoveType.THREE_OPT) threeOptApplied++;
                 applyMove(route, bestMove);
                 currentCost += bestDelta;
                 improved = true;
             }
 
             iteration++;
+            if (VERIFY_COST && (iteration % VERIFY_INTERVAL == 0 || !improved)) {
+                verifyCost(route, currentCost);
+            }
 
         } while (improved);
 
-        route.add(route.get(0));
-        double finalCost = computeTotalCost(route);
-        return new Result(route, finalCost);
+        // currentCost was kept up to date by the move deltas
+        return new Result(route.toClosedList(), currentCost);
     }
 
-    /** Generate combined intra- and inter-route neighborhood */
-    private List<Move> generateNeighborhood(List<Integer> route) {
+    /**
+     * Generate combined intra- and inter-route neighborhood.
+     * Moves are given by nodes, not positions, so they work on any Tour; the route nodes are
+     * visited in node order, which does not depend on where the tour stores them.
+     */
+    private List<Move> generateNeighborhood(Tour route) {
         List<Move> moves = new ArrayList<>();
-        int n = route.size();
 
         // Intra-route moves
-        if (useNodeExchange) {
-            for (int i = 0; i < n; i++) {
-                int nodeI = route.get(i);
-                List<Integer> nearest = candidateEdges.get(nodeI);
-
-                for (int neighbor : nearest) {
-                    int j = route.indexOf(neighbor);
-                    if (j != -1 && j > i) { // only if neighbor is in the route
-                        moves.add(new Move(MoveType.SWAP_NODES, i, j));
-                    }
-                }
-            }
-        } else { // 2-opt
-            for (int i = 0; i < n - 2; i++) {
-                int nodeI = route.get(i);
-                for (int neighbor : candidateEdges.get(nodeI)) {
-                    int j = route.indexOf(neighbor);
-                    if (j != -1 && j > i + 1 && !(i == 0 && j == n - 1)) {
-                        moves.add(new Move(MoveType.TWO_OPT, i, j));
-                    }
+        for (int a = 0; a < instance.size(); a++) {
+            if (!route.contains(a)) continue;
+            for (int c : candidateEdges.get(a)) {
+                if (!route.contains(c)) continue; // only if neighbor is in the route
+                if (useNodeExchange) {
+                    moves.add(new Move(MoveType.SWAP_NODES, a, c));
+                } else if (c != route.next(a) && a != route.next(c)) { // 2-opt adding edge (a, c)
+                    moves.add(new Move(MoveType.TWO_OPT, a, c));
                 }
             }
         }
 
         // Inter-route: swap one selected and one unselected
-        Set<Integer> selected = new HashSet<>(route);
-        for (int i = 0; i < n; i++) {
-            int selectedNode = route.get(i);
-            for (int neighbor : candidateEdges.get(selectedNode)) {
-                if (!selected.contains(neighbor)) {
-                    moves.add(new Move(MoveType.EXCHANGE_SELECTED_UNSELECTED, i, neighbor));
+        for (int a = 0; a < instance.size(); a++) {
+            if (!route.contains(a)) continue;
+            for (int neighbor : candidateEdges.get(a)) {
+                if (!route.contains(neighbor)) {
+                    moves.add(new Move(MoveType.EXCHANGE_SELECTED_UNSELECTED, a, neighbor));
                 }
             }
         }
@@ -127,116 +177,283 @@ public class CandidateMovesLocalSearch extends TSPSolver{
         return moves;
     }
 
+    /**
+     * Best improving candidate move around a node: swaps or 2-opt moves adding an edge from the
+     * node to one of its candidates (2-opt on both sides, so the new edge can replace either
+     * route edge of the node), 3-opt moves starting at the node and exchanges at the node and
+     * its route neighbors.
+     * Returns null if none of them improves.
+     */
+    private Move bestMoveAround(Tour route, int node) {
+        Move best = null;
+        int bestDelta = 0;
+
+        for (int c : candidateEdges.get(node)) {
+            if (!route.contains(c)) continue;
+            if (useNodeExchange) {
+                int delta = deltaSwap(route, node, c);
+                if (delta < bestDelta) { best = new Move(MoveType.SWAP_NODES, node, c); bestDelta = delta; }
+            } else {
+                // (node, next) and (c, next c) become (node, c) and (next, next c)
+                if (isTwoOpt(route, node, c)) {
+                    int delta = deltaTwoOpt(route, node, c);
+                    if (delta < bestDelta) { best = new Move(MoveType.TWO_OPT, node, c); bestDelta = delta; }
+                }
+                // (prev, node) and (prev c, c) become (prev, prev c) and (node, c)
+                int prev = route.prev(node);
+                int prevC = route.prev(c);
+                if (isTwoOpt(route, prev, prevC)) {
+                    int delta = deltaTwoOpt(route, prev, prevC);
+                    if (delta < bestDelta) { best = new Move(MoveType.TWO_OPT, prev, prevC); bestDelta = delta; }
+                }
+            }
+        }
+
+        if (useThreeOpt) {
+            Move move = bestThreeOptFrom(route, node, bestDelta);
+            if (move != null) {
+                best = move;
+                bestDelta = computeDelta(route, move);
+            }
+        }
+
+        int[] positions = {route.prev(node), node, route.next(node)};
+        for (int a : positions) {
+            for (int neighbor : candidateEdges.get(a)) {
+                if (route.contains(neighbor)) continue;
+                int delta = deltaInter(route, a, neighbor);
+                if (delta < bestDelta) { best = new Move(MoveType.EXCHANGE_SELECTED_UNSELECTED, a, neighbor); bestDelta = delta; }
+            }
+        }
+        return best;
+    }
+
+    /** Whether (a, c) is a 2-opt move that changes the route */
+    private boolean isTwoOpt(Tour route, int a, int c) {
+        return a != c && c != route.next(a) && a != route.next(c);
+    }
+
+    /** Activates the endpoints of the edges a move is about to change */
+    private void activateTouched(Tour route, DontLookBits dontLookBits, Move move) {
+        switch (move.type) {
+            case SWAP_NODES:
+                for (int node : new int[]{move.i, move.j}) {
+                    dontLookBits.activate(route.prev(node));
+                    dontLookBits.activate(node);
+                    dontLookBits.activate(route.next(node));
+                }
+                break;
+            case TWO_OPT:
+                dontLookBits.activate(move.i);
+                dontLookBits.activate(route.next(move.i));
+                dontLookBits.activate(move.j);
+                dontLookBits.activate(route.next(move.j));
+                break;
+            case THREE_OPT:
+                for (int node : move.chain) {
+                    dontLookBits.activate(node);
+                }
+                break;
+            case EXCHANGE_SELECTED_UNSELECTED:
+                dontLookBits.activate(route.prev(move.i));
+                dontLookBits.activate(move.j);
+                dontLookBits.activate(route.next(move.i));
+                break;
+        }
+    }
+
+    /**
+     * Best 3-opt move starting at node t1 with a delta below bound, or null if there is none.
+     *
+     * The move is built sequentially like a Lin-Kernighan step: (t1, t2) goes for t2 a route
+     * neighbour of t1, (t2, t3) comes for a candidate t3 of t2, (t3, t4) goes for either route
+     * neighbour t4 of t3, (t4, t5) comes for a candidate t5 of t4, (t5, t6) goes and the move
+     * closes with (t6, t1). Only choices that give a tour again are kept, which are all four pure
+     * 3-opt reconnections: the two paths between the removed edges swap places, each of them
+     * reversed or not. A partial move is only extended while its gain (removed minus added
+     * length so far) stays positive, so a node costs O(k^2) evaluations for k candidates.
+     */
+    private Move bestThreeOptFrom(Tour route, int t1, int bound) {
+        Move best = null;
+        for (int side = 0; side < 2; side++) {
+            boolean forward = side == 0; // "after" below means after in this direction
+            int t2 = step(route, t1, forward);
+            for (int t3 : candidateEdges.get(t2)) {
+                if (!route.contains(t3) || t3 == t1 || t3 == t2) continue;
+                int gain1 = distance(t1, t2) - distance(t2, t3);
+                if (gain1 <= 0) continue;
+                for (int t4Side = 0; t4Side < 2; t4Side++) {
+                    // t4 after t3: the path t2..t3 became a cycle, (t5, t6) must lie on it to cut
+                    // it. t4 before t3: a 2-opt so far, leaving the path t4..t2, t3..t1, and t6 is
+                    // the neighbour of t5 on that path towards t4.
+                    boolean fourAfter = t4Side == 0;
+                    int t4 = step(route, t3, fourAfter == forward);
+                    if (t4 == t2 || t4 == t1) continue;
+                    int gain2 = gain1 + distance(t3, t4);
+                    int end = fourAfter ? t3 : t4;
+                    for (int t5 : candidateEdges.get(t4)) {
+                        if (!route.contains(t5) || t5 == t1 || t5 == t3 || t5 == t4) continue;
+                        int gain3 = gain2 - distance(t4, t5);
+                        if (gain3 <= 0) continue;
+                        boolean onFirstPath = forward ? route.between(t2, t5, end) : route.between(end, t5, t2);
+                        if (fourAfter && !onFirstPath) continue;
+                        for (int t6Side = 0; t6Side < 2; t6Side++) {
+                            boolean sixAfter = t6Side == 0;
+                            if (fourAfter ? !sixAfter && t5 == t2 : sixAfter != onFirstPath) continue;
+                            int t6 = step(route, t5, sixAfter == forward);
+                            threeOptEvaluated++;
+                            int delta = distance(t6, t1) - distance(t5, t6) - gain3;
+                            if (delta < bound) {
+                                best = new Move(MoveType.THREE_OPT, t1, t3, new int[]{t1, t2, t3, t4, t5, t6});
+                                bound = delta;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /** The node after a node, in the tour direction or against it */
+    private static int step(Tour route, int node, boolean forward) {
+        return forward ? route.next(node) : route.prev(node);
+    }
+
+    /** 2-opt replacing the edges (x, y) and (u, v) by (x, u) and (y, v), whichever way they point */
+    private static void flipEdges(Tour route, int x, int y, int u, int v) {
+        if (route.next(x) == y) {
+            route.flip(x, y, u, v);
+        } else {
+            route.flip(y, x, v, u);
+        }
+    }
+
     /** Compute delta change for given move */
-    private double computeDelta(List<Integer> route, Move move) {
+    private int computeDelta(Tour route, Move move) {
         switch (move.type) {
             case SWAP_NODES:
                 return deltaSwap(route, move.i, move.j);
             case TWO_OPT:
                 return deltaTwoOpt(route, move.i, move.j);
+            case THREE_OPT:
+                return deltaThreeOpt(move.chain);
             case EXCHANGE_SELECTED_UNSELECTED:
                 return deltaInter(route, move.i, move.j);
             default:
-                return 0.0;
+                return 0;
         }
     }
 
     /** Delta for swapping two nodes */
-    private double deltaSwap(List<Integer> route, int i, int j) {
-        int n = route.size();
-        if (i == j) return 0;
+    private int deltaSwap(Tour route, int ni, int nj) {
+        if (ni == nj) return 0;
 
-        int ni = route.get(i);
-        int nj = route.get(j);
-        int iPrev = route.get((i - 1 + n) % n);
-        int iNext = route.get((i + 1) % n);
-        int jPrev = route.get((j - 1 + n) % n);
-        int jNext = route.get((j + 1) % n);
+        int iPrev = route.prev(ni);
+        int iNext = route.next(ni);
+        int jPrev = route.prev(nj);
+        int jNext = route.next(nj);
 
-        double before = 0, after = 0;
+        int before = 0, after = 0;
 
         if (iPrev != nj && jPrev != ni) {
-            before += distanceMatrix[iPrev][ni] + distanceMatrix[ni][iNext];
-            before += distanceMatrix[jPrev][nj] + distanceMatrix[nj][jNext];
+            before += distance(iPrev, ni) + distance(ni, iNext);
+            before += distance(jPrev, nj) + distance(nj, jNext);
 
-            after += distanceMatrix[iPrev][nj] + distanceMatrix[nj][iNext];
-            after += distanceMatrix[jPrev][ni] + distanceMatrix[ni][jNext];
+            after += distance(iPrev, nj) + distance(nj, iNext);
+            after += distance(jPrev, ni) + distance(ni, jNext);
         }
 
         return after - before;
     }
 
-    /** Delta for 2-opt edge reversal */
-    private double deltaTwoOpt(List<Integer> route, int i, int j) {
-        int a = route.get(i);
-        int b = route.get(i + 1);
-        int c = route.get(j);
-        int d = route.get((j + 1) % route.size());
+    /** Delta for 2-opt: edges (a, next a) and (c, next c) become (a, c) and (next a, next c) */
+    private int deltaTwoOpt(Tour route, int a, int c) {
+        int b = route.next(a);
+        int d = route.next(c);
 
-        double before = distanceMatrix[a][b] + distanceMatrix[c][d];
-        double after = distanceMatrix[a][c] + distanceMatrix[b][d];
+        int before = distance(a, b) + distance(c, d);
+        int after = distance(a, c) + distance(b, d);
         return after - before;
     }
 
     /** Delta for inter-route (selected ↔ unselected) swap */
-    private double deltaInter(List<Integer> route, int selectedIndex, int unselectedNode) {
-        int selectedNode = route.get(selectedIndex);
-        int prev = route.get((selectedIndex - 1 + route.size()) % route.size());
-        int next = route.get((selectedIndex + 1) % route.size());
-
-        double before = distanceMatrix[prev][selectedNode] + distanceMatrix[selectedNode][next];
-        double after = distanceMatrix[prev][unselectedNode] + distanceMatrix[unselectedNode][next];
+    private int deltaInter(Tour route, int selectedNode, int unselectedNode) {
+        int prev = route.prev(selectedNode);
+        int next = route.next(selectedNode);
 
-        Node selected = nodes.get(selectedNode);
-        Node unselected = nodes.get(unselectedNode);
-        before += selected.getCost();
-        after += unselected.getCost();
+        // arc costs include the cost of the node being entered
+        int before = arcCost(prev, selectedNode) + distance(selectedNode, next);
+        int after = arcCost(prev, unselectedNode) + distance(unselectedNode, next);
 
         return after - before;
     }
 
+    /** 3-opt delta: (t1, t2), (t3, t4), (t5, t6) replaced by (t2, t3), (t4, t5), (t6, t1) */
+    private int deltaThreeOpt(int[] t) {
+        return distance(t[1], t[2]) + distance(t[3], t[4]) + distance(t[5], t[0])
+                - distance(t[0], t[1]) - distance(t[2], t[3]) - distance(t[4], t[5]);
+    }
+
+    /**
+     * Applies a 3-opt move as two or three 2-opt moves: t4 before t3 is a 2-opt followed by
+     * another one from t1; t4 after t3 reverses or swaps the two paths between the edges
+     */
+    private void applyThreeOpt(Tour route, int[] t) {
+        int t1 = t[0], t2 = t[1], t3 = t[2], t4 = t[3], t5 = t[4], t6 = t[5];
+        boolean forward = route.next(t1) == t2;
+        if (step(route, t3, !forward) == t4) {
+            flipEdges(route, t1, t2, t4, t3);
+            flipEdges(route, t1, t4, t6, t5);
+        } else if (step(route, t5, forward) == t6) {
+            // t1, t2..t5, t6..t3, t4 -> t1, t6..t3, t2..t5, t4
+            flipEdges(route, t1, t2, t5, t6);
+            flipEdges(route, t1, t5, t3, t4);
+            flipEdges(route, t1, t3, t6, t2);
+        } else {
+            // t1, t2..t6, t5..t3, t4 -> t1, t6..t2, t3..t5, t4
+            flipEdges(route, t1, t2, t6, t5);
+            flipEdges(route, t2, t5, t3, t4);
+        }
+    }
+
     /** Apply the move */
-    private void applyMove(List<Integer> route, Move move) {
+    private void applyMove(Tour route, Move move) {
         switch (move.type) {
             case SWAP_NODES:
-                Collections.swap(route, move.i, move.j);
+                route.swapNodes(move.i, move.j);
                 break;
             case TWO_OPT:
-                reverseSublist(route, move.i + 1, move.j);
+                route.flip(move.i, route.next(move.i), move.j, route.next(move.j));
+                break;
+            case THREE_OPT:
+                applyThreeOpt(route, move.chain);
                 break;
             case EXCHANGE_SELECTED_UNSELECTED:
-                route.set(move.i, move.j);
+                route.replace(move.i, move.j);
                 break;
         }
     }
 
-    /** Reverse a sublist (for 2-opt) */
-    private void reverseSublist(List<Integer> route, int start, int end) {
-        while (start < end) {
-            Collections.swap(route, start++, end--);
-        }
-    }
-
-    /** Close the route */
-    private List<Integer> closed(List<Integer> route) {
-        List<Integer> r = new ArrayList<>(route);
-        r.add(route.get(0));
-        return r;
-    }
-
     private enum MoveType {
         SWAP_NODES,
         TWO_OPT,
+        THREE_OPT,
         EXCHANGE_SELECTED_UNSELECTED
     }
 
     private static class Move {
         MoveType type;
-        int i, j;
+        int i, j; // nodes
+        int[] chain; // THREE_OPT: t1..t6 (see bestThreeOptFrom), i = t1, j = t3
         Move(MoveType type, int i, int j) {
             this.type = type;
             this.i = i;
             this.j = j;
         }
+        Move(MoveType type, int i, int j, int[] chain) {
+            this(type, i, j);
+            this.chain = chain;
+        }
     }
 }
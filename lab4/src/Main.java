@@ -1,13 +1,16 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 public class Main {
+    // instances with at least this many nodes keep the route in a TwoLevelTour
+    private static final int TWO_LEVEL_TOUR_LIMIT = 10_000;
+    private static final int NUM_RUNS = 200;
+
     public static void main(String[] args) {
         conductExperiments("TSPA");
         conductExperiments("TSPB");
@@ -15,34 +18,31 @@ public class Main {
 
     public static void conductExperiments(String instance){
         String filePath = STR."../data/\{instance}.csv";
-        List<Node> nodes = readCSV(filePath);
+        Instance nodes = readCSV(filePath);
         Result improvedSolution;
 
         long start;
         long end;
         long timeNodesExchangeFalse = 0;
         long timeNodesExchangeTrue = 0;
+        long timeThreeOpt = 0;
 
-        int n = nodes.size();
-        double[] x = new double[n];
-        double[] y = new double[n];
-        for (int i = 0; i < n; i++) {
-            x[i] = nodes.get(i).getX();
-            y[i] = nodes.get(i).getY();
-        }
-
-        DistanceMatrix dm = new DistanceMatrix(x, y);
+        InstanceBundle bundle = InstanceBundle.loadOrBuild(Path.of(filePath), nodes);
+        DistanceOracle dm = bundle.getDistances();
         System.out.println(STR."=== Distance Matrix for \{instance} ===");
         dm.printMatrix();
 
         SolutionSpace solutionsNodeExchangeFalse = new SolutionSpace();
         SolutionSpace solutionsNodeExchangeTrue = new SolutionSpace();
+        SolutionSpace solutionsThreeOpt = new SolutionSpace();
 
-        RandomSearch RandomHeuristic = new RandomSearch(dm.getMatrix(), nodes);
-        CandidateMovesLocalSearch CandidateMovesHeuristicUseNodesExchangeFalse = new CandidateMovesLocalSearch(dm.getMatrix(), nodes, false);
-        CandidateMovesLocalSearch CandidateMovesHeuristicUseNodesExchangeTrue = new CandidateMovesLocalSearch(dm.getMatrix(), nodes, true);
+        RandomSearch RandomHeuristic = new RandomSearch(bundle);
+        boolean useTwoLevelTour = nodes.size() >= TWO_LEVEL_TOUR_LIMIT;
+        CandidateMovesLocalSearch CandidateMovesHeuristicUseNodesExchangeFalse = new CandidateMovesLocalSearch(bundle, false, useTwoLevelTour);
+        CandidateMovesLocalSearch CandidateMovesHeuristicUseNodesExchangeTrue = new CandidateMovesLocalSearch(bundle, true, useTwoLevelTour);
+        CandidateMovesLocalSearch CandidateMovesHeuristicThreeOpt = new CandidateMovesLocalSearch(bundle, false, useTwoLevelTour, false, true);
 
-        for (int iteration=0; iteration<200; iteration++) {
+        for (int iteration=0; iteration<NUM_RUNS; iteration++) {
             // 0. Initial solution
             List<Integer> randomSolution = RandomHeuristic.solve().getRoute();
 
@@ -59,25 +59,39 @@ public class Main {
             end = System.nanoTime();
             solutionsNodeExchangeTrue.addSolution(improvedSolution);
             timeNodesExchangeTrue += (end - start);
+
+            //3. Local Search with Candidates Moves, useNodesExchange = false, with 3-opt moves
+            start = System.nanoTime();
+            improvedSolution = CandidateMovesHeuristicThreeOpt.solve(randomSolution);
+            end = System.nanoTime();
+            solutionsThreeOpt.addSolution(improvedSolution);
+            timeThreeOpt += (end - start);
         }
 
         // 3. Print statistics
         System.out.println(solutionsNodeExchangeFalse.statsToStr());
         System.out.println(solutionsNodeExchangeTrue.statsToStr());
+        System.out.println(solutionsThreeOpt.statsToStr());
 
         // 4. Print times
         System.out.println(timeNodesExchangeFalse/1_000_000);
         System.out.println(timeNodesExchangeTrue/1_000_000);
+        System.out.println(timeThreeOpt/1_000_000);
+
+        System.out.println("\n=== 3-opt Moves per Run ===");
+        System.out.println(STR."\{CandidateMovesHeuristicThreeOpt.getThreeOptEvaluatedCount() / NUM_RUNS} evaluated, \{CandidateMovesHeuristicThreeOpt.getThreeOptAppliedCount() / NUM_RUNS} applied");
 
         // 5. Write the best solutions to CSV
         solutionsNodeExchangeFalse.bestSolutionToCsv(STR."evaluation/results/\{instance}_candidate_moves_heuristic_without_nodes_exchange.csv");
         solutionsNodeExchangeTrue.bestSolutionToCsv(STR."evaluation/results/\{instance}_candidate_moves_heuristic_with_nodes_exchange.csv");
+        solutionsThreeOpt.bestSolutionToCsv(STR."evaluation/results/\{instance}_candidate_moves_heuristic_with_three_opt.csv");
 
         // 6. Write times to CSV
         List<String> textToWrite = Arrays.asList(
                 "method,time\n",
                 STR."local_search_with_candidate_moves_false,\{timeNodesExchangeFalse}\n",
-                STR."local_search_with_candidate_moves_true,\{timeNodesExchangeTrue}\n"
+                STR."local_search_with_candidate_moves_true,\{timeNodesExchangeTrue}\n",
+                STR."local_search_with_candidate_moves_three_opt,\{timeThreeOpt}\n"
                 );
         String times_csv_path = STR."evaluation/\{instance}_times.csv";
         writeListToCSV(times_csv_path, textToWrite);
@@ -97,23 +111,13 @@ public class Main {
         System.out.println("DONE!");
     }
 
-    public static List<Node> readCSV(String filePath){
-        List<Node> nodes = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(";");
-                if (values.length >= 3) {
-                    int x = Integer.parseInt(values[0].trim());
-                    int y = Integer.parseInt(values[1].trim());
-                    int cost = Integer.parseInt(values[2].trim());
-                    nodes.add(new Node(x, y, cost));
-                }
-            }
+    public static Instance readCSV(String filePath){
+        try {
+            return InstanceLoader.load(Path.of(filePath));
         } catch (IOException e) {
             e.printStackTrace();
+            return new Instance(new int[0], new int[0], new int[0]);
         }
-        return nodes;
     }
 
     public static void writeListToCSV(String filePath, List<String> textToWrite){
@@ -4,19 +4,19 @@ import java.util.List;
 import java.util.Random;
 
 public class RandomSearch extends TSPSolver{
-    public RandomSearch(double[][] distanceMatrix, List<Node> nodes){
-        super(distanceMatrix, nodes);
+    public RandomSearch(InstanceBundle bundle){
+        super(bundle);
     }
 
     public Result solve(){
         List<Integer> route = new ArrayList<>();
-        for (int i = 0; i < nodes.size(); i++) route.add(i);
+        for (int i = 0; i < instance.size(); i++) route.add(i);
         Collections.shuffle(route, new Random());
 
         route = route.subList(0, targetCount);
         route.add(route.getFirst());
 
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(new ArrayList<>(route), totalCost);
     }
 }
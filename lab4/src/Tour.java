@@ -0,0 +1,51 @@
+import java.util.List;
+
+/**
+ * A cycle over a subset of the nodes, addressed by node rather than by position, so the
+ * storage behind it can be an array (Route) or a two-level list (TwoLevelTour).
+ *
+ * The cycle has a direction: next and prev follow it, and flip keeps it for the longer of
+ * the two paths it could reverse. Implementations make the same choice, so the same moves
+ * applied to the same start give the same directed cycle on every backend.
+ */
+public interface Tour {
+
+    int size();
+
+    boolean contains(int node);
+
+    /**
+     * Returns some node of the tour, the start for walking it with next
+     */
+    int first();
+
+    int next(int node);
+
+    int prev(int node);
+
+    /**
+     * Returns whether b lies on the path from a forward to c (inclusive)
+     */
+    boolean between(int a, int b, int c);
+
+    /**
+     * 2-opt move: with b = next(a) and d = next(c), replaces the edges (a, b) and (c, d)
+     * by (a, c) and (b, d), reversing the shorter of the paths b..c and d..a
+     */
+    void flip(int a, int b, int c, int d);
+
+    /**
+     * Puts a node that is not in the tour at the place of one that is
+     */
+    void replace(int oldNode, int newNode);
+
+    /**
+     * Exchanges the places of two nodes of the tour
+     */
+    void swapNodes(int u, int v);
+
+    /**
+     * Returns the tour as a list from first(), closed by repeating the first node at the end
+     */
+    List<Integer> toClosedList();
+}
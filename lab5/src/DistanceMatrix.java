@@ -1,54 +1,150 @@
-public class DistanceMatrix {
-
-    private double[][] matrix; // distance matrix
-
-    /**
-     * Constructor: generates the distance matrix
-     * @param x array of x-coordinates
-     * @param y array of y-coordinates
-     */
-    public DistanceMatrix(double[] x, double[] y) {
-        if (x.length != y.length) {
-            throw new IllegalArgumentException("x and y arrays must have the same length");
-        }
-        int n = x.length;
-        matrix = new double[n][n];
-
-        // compute Euclidean distances
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                double dx = x[i] - x[j];
-                double dy = y[i] - y[j];
-                double distance = Math.sqrt(dx * dx + dy * dy);
-                matrix[i][j] = Math.round(distance);
-            }
-        }
-    }
-
-    /**
-     * Returns the computed distance matrix
-     */
-    public double[][] getMatrix() {
-        return matrix;
-    }
-
-    /**
-     * Returns distance between two points i and j
-     */
-    public double getDistance(int i, int j) {
-        return matrix[i][j];
-    }
-
-    /**
-     * Prints the distance matrix in readable form
-     */
-    public void printMatrix() {
-        System.out.println("Distance Matrix:");
-        for (double[] row : matrix) {
-            for (double val : row) {
-                System.out.printf("%.2f\t", val);
-            }
-            System.out.println();
-        }
-    }
-}
\ No newline at end of file
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+public class DistanceMatrix implements DistanceOracle {
+
+    static final int PARALLEL_THRESHOLD = 1024; // below this, forking costs more than it saves
+    private static final int BLOCK = 64;        // tile size for mirroring the upper triangle
+
+    private final int n;          // number of points
+    private final int[] matrix;   // row-major distance matrix: distance(i, j) = matrix[i * n + j]
+    private final int[] arcCosts; // row-major arc costs: distance(i, j) + cost of node j
+
+    /**
+     * Constructor: generates the distance matrix and the fused arc-cost matrix,
+     * in parallel for instances with at least PARALLEL_THRESHOLD points
+     * @param x array of x-coordinates
+     * @param y array of y-coordinates
+     * @param costs array of node costs
+     */
+    public DistanceMatrix(double[] x, double[] y, int[] costs) {
+        this(x, y, costs, x.length >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Constructor: generates the distance matrix and the fused arc-cost matrix
+     * @param x array of x-coordinates
+     * @param y array of y-coordinates
+     * @param costs array of node costs
+     * @param parallel whether rows are split across the common ForkJoinPool
+     */
+    public DistanceMatrix(double[] x, double[] y, int[] costs, boolean parallel) {
+        if (x.length != y.length || x.length != costs.length) {
+            throw new IllegalArgumentException("x, y and costs arrays must have the same length");
+        }
+        n = x.length;
+        if ((long) n * n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many points for a dense distance matrix: " + n);
+        }
+        matrix = new int[n * n];
+        arcCosts = new int[n * n];
+
+        // distances are symmetric: compute the upper triangle, then mirror it block by block
+        forEach(n, parallel, i -> computeUpperRow(i, x, y));
+        forEach((n + BLOCK - 1) / BLOCK, parallel, b -> mirrorBlock(b, costs));
+    }
+
+    /**
+     * Constructor: wraps an already computed row-major distance matrix and fuses the arc costs
+     * @param matrix n * n rounded distances
+     * @param costs array of node costs
+     */
+    public DistanceMatrix(int[] matrix, int[] costs) {
+        n = costs.length;
+        if (matrix.length != (long) n * n) {
+            throw new IllegalArgumentException("matrix does not hold " + n + "x" + n + " distances");
+        }
+        this.matrix = matrix;
+        arcCosts = new int[n * n];
+        forEach((n + BLOCK - 1) / BLOCK, n >= PARALLEL_THRESHOLD, b -> fillArcCosts(b, costs));
+    }
+
+    /**
+     * Computes the rounded Euclidean distances matrix[i][j] for j > i. The loop body only
+     * touches contiguous arrays, so the JIT can vectorize the dx/dy/sqrt/round kernel.
+     */
+    private void computeUpperRow(int i, double[] x, double[] y) {
+        int row = i * n;
+        double xi = x[i];
+        double yi = y[i];
+        for (int j = i + 1; j < n; j++) {
+            double dx = xi - x[j];
+            double dy = yi - y[j];
+            matrix[row + j] = (int) Math.round(Math.sqrt(dx * dx + dy * dy));
+        }
+    }
+
+    /**
+     * Fills the lower triangle of rows [b * BLOCK, (b + 1) * BLOCK) from the upper one,
+     * one BLOCK x BLOCK tile at a time so the transposed reads stay in cache, then
+     * fills the arc costs of those rows
+     */
+    private void mirrorBlock(int b, int[] costs) {
+        int from = b * BLOCK;
+        int to = Math.min(n, from + BLOCK);
+        for (int col = 0; col < to; col += BLOCK) {
+            for (int i = from; i < to; i++) {
+                int row = i * n;
+                int end = Math.min(col + BLOCK, i);
+                for (int j = col; j < end; j++) {
+                    matrix[row + j] = matrix[j * n + i];
+                }
+            }
+        }
+        fillArcCosts(b, costs);
+    }
+
+    /**
+     * Fills the arc costs of rows [b * BLOCK, (b + 1) * BLOCK)
+     */
+    private void fillArcCosts(int b, int[] costs) {
+        int from = b * BLOCK;
+        int to = Math.min(n, from + BLOCK);
+        for (int i = from; i < to; i++) {
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                arcCosts[row + j] = matrix[row + j] + costs[j];
+            }
+        }
+    }
+
+    private static void forEach(int count, boolean parallel, IntConsumer action) {
+        IntStream indices = IntStream.range(0, count);
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        indices.forEach(action);
+    }
+
+    /**
+     * Returns the computed distance matrix as a flat row-major array
+     */
+    public int[] getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Returns the number of points
+     */
+    @Override
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns distance between two points i and j
+     */
+    @Override
+    public int getDistance(int i, int j) {
+        return matrix[i * n + j];
+    }
+
+    /**
+     * Returns the cost of travelling from i to j and visiting j,
+     * i.e. distance(i, j) + cost(j)
+     */
+    @Override
+    public int getArcCost(int i, int j) {
+        return arcCosts[i * n + j];
+    }
+}
@@ -1,721 +1,906 @@
-import java.util.*;
-import java.util.stream.Collectors;
-
-/**
- * Local Search for TSP.
- *
- * Implements two steepest descent algorithms:
- * 1. Baseline: Re-evaluates the entire neighborhood each iteration.
- * 2. With Move List (LM): Reuses move evaluations (deltas) from previous iterations.
- *
- * Neighborhood = intra-route (2-opt) + inter-route (node exchange).
- */
-public class LocalSearch extends TSPSolver {
-
-    private final boolean useSteepest;
-    private final boolean useNodeExchange;
-    private final Random random;
-    private final boolean useMoveList;
-    private List<Move> improvingMoveList;
-
-
-
-    public LocalSearch(double[][] distanceMatrix, List<Node> nodes,
-                       boolean useSteepest, boolean useNodeExchange, boolean useMoveList) {
-        super(distanceMatrix, nodes);
-        // For LM search, we MUST use steepest and 2-opt (edge swap)
-        if (useMoveList) {
-            this.useSteepest = true;
-            this.useNodeExchange = false; // Assignment implies 2-opt (edge exchange)
-        } else {
-            this.useSteepest = useSteepest;
-            this.useNodeExchange = useNodeExchange;
-        }
-        this.useMoveList = useMoveList;
-        this.random = new Random();
-
-        this.improvingMoveList = new ArrayList<>();
-    }
-
-    /**
-     * Main solver entry point.
-     * Routes to the correct local search implementation based on the 'useMoveList' flag.
-     */
-    public Result solve(List<Integer> initialRoute) {
-        if (useMoveList) {
-            return solveSteepestLM(initialRoute);
-        } else {
-            // Use the original baseline method
-            return solveSteepestBaseline(initialRoute);
-        }
-    }
-
-    /**
-     * The Steepest Local Search with Move List (LM).
-     */
-    public Result solveSteepestLM(List<Integer> initialRoute) {
-        List<Integer> route = new ArrayList<>(initialRoute);
-        if (route.size() > 1 && route.get(0).equals(route.get(route.size() - 1))) {
-            route.remove(route.size() - 1);
-        }
-
-        // Build the set of unselected nodes
-        Set<Integer> selected = new HashSet<>(route);
-        Set<Integer> remainingNodes = new HashSet<>();
-        for (int i = 0; i < nodes.size(); i++) {
-            if (!selected.contains(i)) {
-                remainingNodes.add(i);
-            }
-        }
-
-        // Clear the move list for a new run
-        improvingMoveList.clear();
-        boolean improved = true;
-
-        while (improved) {
-            improved = performSteepestStepLM(route, remainingNodes);
-        }
-
-        route.add(route.get(0)); // close route
-        double finalCost = computeTotalCost(route);
-        return new Result(route, finalCost);
-    }
-
-    /**
-     * Performs one step of the steepest search using the LM.
-     * Finds the best valid move from the list, applies it, and updates the list.
-     * Returns true if an improvement was made, false otherwise.
-     */
-    private boolean performSteepestStepLM(List<Integer> route, Set<Integer> remainingNodes) {
-
-        // 1. Populate LM if it's empty (first iteration or after a local optimum)
-        if (improvingMoveList.isEmpty()) {
-            populateMoveList(route, remainingNodes);
-            if (improvingMoveList.isEmpty()) {
-                return false; // No improving moves found at all
-            }
-        }
-
-        // Build successor/predecessor maps for fast edge validation
-        Map<Integer, Integer> succMap = buildSuccMap(route);
-        Map<Integer, Integer> predMap = buildPredMap(route);
-
-        // 2. Recheck moves in LM, best first
-        improvingMoveList.sort(Comparator.comparingDouble(m -> m.delta));
-
-        Iterator<Move> it = improvingMoveList.iterator();
-        while (it.hasNext()) {
-            Move move = it.next();
-
-            // 3. Validate the move against the current solution
-            ValidationResult val = validateMove(move, succMap, predMap, remainingNodes);
-
-            if (!val.keepMove) {
-                it.remove(); // Remove move, edges no longer exist
-                continue;
-            }
-
-            if (!val.applyMove) {
-                // Keep move, but don't apply (e.g., direction is wrong)
-                continue;
-            }
-
-            // 4. Apply the move
-            Set<Integer> changedNodes = applyMoveLM(route, remainingNodes, move, val);
-            it.remove(); // Remove the move we just applied
-
-            updateLocalMoves(route, remainingNodes, changedNodes, move.type);
-
-            return true; // Found and applied the best move
-        }
-
-        return false; // No valid improving move found in the list
-    }
-
-    /**
-     * Fills the improvingMoveList with all possible improving moves
-     * from the current solution.
-     */
-    private void populateMoveList(List<Integer> route, Set<Integer> remainingNodes) {
-        int n = route.size();
-        improvingMoveList.clear();
-
-        for (int i = 0; i < n; i++) {
-            int nodeInCycle = route.get(i);
-            for (int nodeOutOfCycle : remainingNodes) {
-                double delta = deltaInter(route, i, nodeOutOfCycle);
-                if (delta < -1e-9) {
-                    int prev = route.get((i - 1 + n) % n);
-                    int next = route.get((i + 1) % n);
-                    improvingMoveList.add(Move.forInterRoute(
-                            MoveType.EXCHANGE_SELECTED_UNSELECTED, delta,
-                            prev, next, nodeInCycle, nodeOutOfCycle
-                    ));
-                }
-            }
-        }
-
-
-        for (int i = 0; i < n - 1; i++) {
-            for (int j = i + 1; j < n; j++) {
-                // This delta calculation is for 2-opt
-                double delta = deltaTwoOpt(route, i, j);
-
-                if (delta < -1e-9) {
-                    int a = route.get(i);
-                    int b = route.get((i + 1) % n);
-                    int c = route.get(j);
-                    int d = route.get((j + 1) % n);
-
-
-                    if (c == b) continue; // Avoid adjacent/overlapping
-
-                    // Add moves for both forward and reverse
-                    // We store the "forward" move (A-B, C-D)
-                    improvingMoveList.add(Move.forIntraEdge(MoveType.TWO_OPT, delta, a, b, c, d));
-                }
-            }
-        }
-
-        improvingMoveList.sort(Comparator.comparingDouble(m -> m.delta));
-    }
-
-    /**
-     * Validates a move from the LM against the current solution.
-     */
-    private ValidationResult validateMove(Move move, Map<Integer, Integer> succMap,
-                                          Map<Integer, Integer> predMap, Set<Integer> remaining) {
-        switch (move.type) {
-            case EXCHANGE_SELECTED_UNSELECTED:
-                // A=prev, B=next, C=inCycle, D=outOfCycle
-                int A_inter = move.nodeA;
-                int B_inter = move.nodeB;
-                int C_inter = move.nodeC;
-                int D_inter = move.nodeD;
-
-                boolean edgesExist = (hasEdge(succMap, A_inter, C_inter) || hasEdge(succMap, C_inter, A_inter)) &&
-                        (hasEdge(succMap, C_inter, B_inter) || hasEdge(succMap, B_inter, C_inter));
-                boolean d_exists = remaining.contains(D_inter);
-
-                if (!edgesExist || !d_exists) {
-                    return new ValidationResult(false, false, false); // Case 1: Remove
-                }
-
-                // Check for forward direction: (A -> C -> B)
-                if (hasEdge(succMap, A_inter, C_inter) && hasEdge(succMap, C_inter, B_inter)) {
-                    return new ValidationResult(true, true, false); // Case 3: Apply forward
-                }
-                // Check for reversed direction: (B -> C -> A)
-                if (hasEdge(succMap, B_inter, C_inter) && hasEdge(succMap, C_inter, A_inter)) {
-                    return new ValidationResult(true, true, true); // Case 3: Apply reversed
-                }
-
-                return new ValidationResult(false, true, false); // Case 2: Keep
-
-            case TWO_OPT:
-                // A=a, B=b, C=c, D=d
-                int A_intra = move.nodeA;
-                int B_intra = move.nodeB;
-                int C_intra = move.nodeC;
-                int D_intra = move.nodeD;
-
-                boolean ab_exists = hasEdge(succMap, A_intra, B_intra) || hasEdge(succMap, B_intra, A_intra);
-                boolean cd_exists = hasEdge(succMap, C_intra, D_intra) || hasEdge(succMap, D_intra, C_intra);
-
-                if (!ab_exists || !cd_exists) {
-                    return new ValidationResult(false, false, false); // Case 1: Remove
-                }
-
-                // Check for forward direction: (A -> B) and (C -> D)
-                if (hasEdge(succMap, A_intra, B_intra) && hasEdge(succMap, C_intra, D_intra)) {
-                    return new ValidationResult(true, true, false); // Case 3: Apply forward
-                }
-                // Check for reversed direction: (B -> A) and (D -> C)
-                if (hasEdge(succMap, B_intra, A_intra) && hasEdge(succMap, D_intra, C_intra)) {
-                    return new ValidationResult(true, true, true); // Case 3: Apply reversed
-                }
-
-                return new ValidationResult(false, true, false); // Case 2: Keep
-        }
-        return new ValidationResult(false, false, false);
-    }
-
-    /**
-     * Applies a move that is defined by NODES, not indices.
-     * This is different from the baseline 'applyMove'.
-     * Returns the set of nodes that were involved in the change.
-     */
-    private Set<Integer> applyMoveLM(List<Integer> route, Set<Integer> remaining, Move move, ValidationResult val) {
-        Set<Integer> changedNodes = new HashSet<>();
-
-        switch (move.type) {
-            case EXCHANGE_SELECTED_UNSELECTED: {
-                // A=prev, B=next, C=inCycle, D=outOfCycle
-                int nodeC = move.nodeC;
-                int nodeD = move.nodeD;
-                int idxC = route.indexOf(nodeC);
-
-                if (idxC != -1) {
-                    route.set(idxC, nodeD);
-                    remaining.remove(nodeD);
-                    remaining.add(nodeC);
-
-                    changedNodes.add(move.nodeA); // prev
-                    changedNodes.add(move.nodeB); // next
-                    changedNodes.add(nodeC);      // old node (now in remaining)
-                    changedNodes.add(nodeD);      // new node (now in route)
-                }
-                break;
-            }
-
-            case TWO_OPT: {
-                // A=a, B=b, C=c, D=d
-                int nodeA = move.nodeA;
-                int nodeB = move.nodeB;
-                int nodeC = move.nodeC;
-                int nodeD = move.nodeD;
-
-                int startIdx, endIdx;
-
-                if (!val.applyReversed) {
-                    // Forward: A->B, C->D. Reverse (B...C)
-                    startIdx = route.indexOf(nodeB);
-                    endIdx = route.indexOf(nodeC);
-                } else {
-                    // Reversed: B->A, D->C. Reverse (A...D)
-                    startIdx = route.indexOf(nodeA);
-                    endIdx = route.indexOf(nodeD);
-                }
-
-                // Handle wrap-around
-                if (startIdx > endIdx) {
-                    List<Integer> sublist = new ArrayList<>();
-                    for(int i = startIdx; i < route.size(); i++) sublist.add(route.get(i));
-                    for(int i = 0; i <= endIdx; i++) sublist.add(route.get(i));
-
-                    Collections.reverse(sublist);
-
-                    int k = 0;
-                    for(int i = startIdx; i < route.size(); i++) route.set(i, sublist.get(k++));
-                    for(int i = 0; i <= endIdx; i++) route.set(i, sublist.get(k++));
-
-                } else {
-                    reverseSublist(route, startIdx, endIdx);
-                }
-
-                changedNodes.add(nodeA);
-                changedNodes.add(nodeB);
-                changedNodes.add(nodeC);
-                changedNodes.add(nodeD);
-                break;
-            }
-        }
-        return changedNodes;
-    }
-
-    /**
-     * Re-evaluates moves involving the nodes that just changed and
-     * adds new improving moves to the LM.
-     */
-    private void updateLocalMoves(List<Integer> route, Set<Integer> remaining,
-                                  Set<Integer> changedNodes, MoveType lastMoveType) {
-        int n = route.size();
-
-        improvingMoveList.removeIf(m ->
-                changedNodes.contains(m.nodeA) || changedNodes.contains(m.nodeB) ||
-                        changedNodes.contains(m.nodeC) || changedNodes.contains(m.nodeD)
-        );
-
-        Set<Integer> indicesToCheck = new HashSet<>();
-        for (int node : changedNodes) {
-            int idx = route.indexOf(node); // Check nodes now in the route
-            if (idx != -1) {
-                indicesToCheck.add((idx - 1 + n) % n); // neighbor
-                indicesToCheck.add(idx);               // self
-                indicesToCheck.add((idx + 1) % n); // neighbor
-            }
-        }
-
-        // A. Re-evaluate neighbors of affected positions with all remaining nodes
-        for (int i : indicesToCheck) {
-            int nodeInCycle = route.get(i);
-            for (int nodeOutOfCycle : remaining) {
-                double delta = deltaInter(route, i, nodeOutOfCycle);
-                if (delta < -1e-9) {
-                    int prev = route.get((i - 1 + n) % n);
-                    int next = route.get((i + 1) % n);
-                    // *** Use static factory method ***
-                    improvingMoveList.add(Move.forInterRoute(
-                            MoveType.EXCHANGE_SELECTED_UNSELECTED, delta,
-                            prev, next, nodeInCycle, nodeOutOfCycle
-                    ));
-                }
-            }
-        }
-
-        // B. Re-evaluate all cycle nodes with the newly available remaining node
-        if (lastMoveType == MoveType.EXCHANGE_SELECTED_UNSELECTED) {
-            // Find the node that was just moved from the route to 'remaining'
-            int newNodeInRemaining = -1;
-            for (int node : changedNodes) {
-                if (remaining.contains(node)) {
-                    newNodeInRemaining = node;
-                    break;
-                }
-            }
-
-            if (newNodeInRemaining != -1) {
-                for (int i = 0; i < n; i++) {
-                    int nodeInCycle = route.get(i);
-                    double delta = deltaInter(route, i, newNodeInRemaining);
-                    if (delta < -1e-9) {
-                        int prev = route.get((i - 1 + n) % n);
-                        int next = route.get((i + 1) % n);
-                        improvingMoveList.add(Move.forInterRoute(
-                                MoveType.EXCHANGE_SELECTED_UNSELECTED, delta,
-                                prev, next, nodeInCycle, newNodeInRemaining
-                        ));
-                    }
-                }
-            }
-        }
-        // Find all nodes in the cycle that were changed (A, B, C, D)
-        Set<Integer> changedCycleNodes = changedNodes.stream()
-                .filter(node -> route.contains(node))
-                .collect(Collectors.toSet());
-
-        // Check all new pairs (A', C') where A' is a changed node
-        for (int nodeA_prime : changedCycleNodes) {
-            int i = route.indexOf(nodeA_prime);
-            if (i == -1) continue;
-
-            for (int j = 0; j < n; j++) {
-                if (i == j) continue;
-
-                // Ensure i < j for consistent delta calculation
-                int idx_i = i, idx_j = j;
-                if (idx_i > idx_j) {
-                    idx_i = j; idx_j = i;
-                }
-
-                // This delta calculation is for 2-opt
-                double delta = deltaTwoOpt(route, idx_i, idx_j);
-
-                if (delta < -1e-9) {
-                    int a = route.get(idx_i);
-                    int b = route.get((idx_i + 1) % n);
-                    int c = route.get(idx_j);
-                    int d = route.get((idx_j + 1) % n);
-
-                    if (c == b) continue;
-
-                    // *** Use static factory method ***
-                    improvingMoveList.add(Move.forIntraEdge(MoveType.TWO_OPT, delta, a, b, c, d));
-                }
-            }
-        }
-    }
-
-
-    private static class ValidationResult {
-        boolean applyMove;
-        boolean keepMove;
-        boolean applyReversed;
-
-        ValidationResult(boolean apply, boolean keep, boolean reversed) {
-            this.applyMove = apply;
-            this.keepMove = keep;
-            this.applyReversed = reversed;
-        }
-    }
-
-    private Map<Integer, Integer> buildSuccMap(List<Integer> route) {
-        Map<Integer, Integer> map = new HashMap<>();
-        for (int i = 0; i < route.size(); i++) {
-            map.put(route.get(i), route.get((i + 1) % route.size()));
-        }
-        return map;
-    }
-
-    private Map<Integer, Integer> buildPredMap(List<Integer> route) {
-        Map<Integer, Integer> map = new HashMap<>();
-        int n = route.size();
-        for (int i = 0; i < n; i++) {
-            map.put(route.get(i), route.get((i - 1 + n) % n));
-        }
-        return map;
-    }
-
-    private boolean hasEdge(Map<Integer, Integer> succMap, int u, int v) {
-        return succMap.getOrDefault(u, -1) == v;
-    }
-
-
-
-    /**
-     * This is the ORIGINAL 'solve' method, renamed to be the baseline.
-     * It runs a standard steepest local search.
-     */
-    public Result solveSteepestBaseline(List<Integer> initialRoute) {
-        List<Integer> route = new ArrayList<>(initialRoute);
-        if (route.size() > 1 && route.get(0).equals(route.get(route.size() - 1))) {
-            route.remove(route.size() - 1);
-        }
-
-        double currentCost = computeTotalCost(closed(route));
-        boolean improved;
-        int iteration = 0;
-
-        do {
-            improved = false;
-            Move baselineBestMove = null; // Use the old Move class
-            double bestDelta = 0.0;
-
-            List<Move> neighborhood = generateNeighborhood(route);
-
-            if (!useSteepest) Collections.shuffle(neighborhood, random);
-
-            for (Move move : neighborhood) {
-                double delta = computeDelta(route, move);
-                if (delta < -1e-9) {
-                    if (useSteepest) {
-                        if (baselineBestMove == null || delta < bestDelta) {
-                            baselineBestMove = move;
-                            bestDelta = delta;
-                        }
-                    } else {
-                        applyMove(route, move);
-                        currentCost += delta;
-                        improved = true;
-                        break;
-                    }
-                }
-            }
-
-            if (useSteepest && baselineBestMove != null) {
-                applyMove(route, baselineBestMove);
-                currentCost += bestDelta;
-                improved = true;
-            }
-
-            iteration++;
-
-        } while (improved);
-
-        route.add(route.get(0));
-        double finalCost = computeTotalCost(route);
-        return new Result(route, finalCost);
-    }
-
-    /** Generate combined intra- and inter-route neighborhood (FOR BASELINE) */
-    private List<Move> generateNeighborhood(List<Integer> route) {
-        List<Move> moves = new ArrayList<>();
-        int n = route.size();
-
-        if (useNodeExchange) {
-            for (int i = 0; i < n - 1; i++) {
-                for (int j = i + 1; j < n; j++) {
-                    moves.add(new Move(MoveType.SWAP_NODES, i, j));
-                }
-            }
-        } else { // 2-opt
-            for (int i = 0; i < n - 1; i++) {
-                for (int j = i + 1; j < n; j++) {
-                    moves.add(new Move(MoveType.TWO_OPT, i, j));
-                }
-            }
-        }
-
-        Set<Integer> selected = new HashSet<>(route);
-        for (int i = 0; i < n; i++) {
-            for (int node = 0; node < nodes.size(); node++) {
-                if (!selected.contains(node)) {
-                    moves.add(new Move(MoveType.EXCHANGE_SELECTED_UNSELECTED, i, node));
-                }
-            }
-        }
-
-        return moves;
-    }
-
-    /** Compute delta change for given move (FOR BASELINE) */
-    private double computeDelta(List<Integer> route, Move move) {
-        switch (move.type) {
-            case SWAP_NODES:
-                return deltaSwap(route, move.i, move.j);
-            case TWO_OPT:
-                return deltaTwoOpt(route, move.i, move.j);
-            case EXCHANGE_SELECTED_UNSELECTED:
-                return deltaInter(route, move.i, move.j);
-            default:
-                return 0.0;
-        }
-    }
-
-    /** Delta for swapping two nodes */
-    private double deltaSwap(List<Integer> route, int i, int j) {
-        int n = route.size();
-        if (i == j) return 0;
-
-        // Handle adjacent swap (which is 2-opt, but in node-swap logic)
-        if (i + 1 == j || (i == n-1 && j == 0)) {
-            // Swap i and j if j < i
-            if (i > j) { int temp = i; i = j; j = temp; }
-
-            int ni = route.get(i);
-            int nj = route.get(j);
-            int iPrev = route.get((i - 1 + n) % n);
-            int jNext = route.get((j + 1) % n);
-
-            double before = distanceMatrix[iPrev][ni] + distanceMatrix[ni][nj] + distanceMatrix[nj][jNext];
-            double after = distanceMatrix[iPrev][nj] + distanceMatrix[nj][ni] + distanceMatrix[ni][jNext];
-            return after - before;
-        }
-
-        int ni = route.get(i);
-        int nj = route.get(j);
-        int iPrev = route.get((i - 1 + n) % n);
-        int iNext = route.get((i + 1) % n);
-        int jPrev = route.get((j - 1 + n) % n);
-        int jNext = route.get((j + 1) % n);
-
-        double before = distanceMatrix[iPrev][ni] + distanceMatrix[ni][iNext] +
-                distanceMatrix[jPrev][nj] + distanceMatrix[nj][jNext];
-        double after = distanceMatrix[iPrev][nj] + distanceMatrix[nj][iNext] +
-                distanceMatrix[jPrev][ni] + distanceMatrix[ni][jNext];
-
-        return after - before;
-    }
-
-    /** * Delta for edge reversal
-     */
-    private double deltaTwoOpt(List<Integer> route, int i, int j) {
-        int n = route.size();
-        // Ensure i < j
-        if (i > j) { int temp = i; i = j; j = temp; }
-
-
-        int a = route.get(i);
-        int b = route.get((i + 1) % n);
-        int c = route.get(j);
-        int d = route.get((j + 1) % n);
-
-        double before = distanceMatrix[a][b] + distanceMatrix[c][d];
-        double after = distanceMatrix[a][c] + distanceMatrix[b][d];
-        return after - before;
-    }
-
-    /**
-     * Delta for inter-route (selected/unselected) swap.
-     */
-    private double deltaInter(List<Integer> route, int selectedIndex, int unselectedNode) {
-        int selectedNode = route.get(selectedIndex);
-        int prev = route.get((selectedIndex - 1 + route.size()) % route.size());
-        int next = route.get((selectedIndex + 1) % route.size());
-
-        double before = distanceMatrix[prev][selectedNode] + distanceMatrix[selectedNode][next];
-        double after = distanceMatrix[prev][unselectedNode] + distanceMatrix[unselectedNode][next];
-
-        Node selected = nodes.get(selectedNode);
-        Node unselected = nodes.get(unselectedNode);
-        before += selected.getCost();
-        after += unselected.getCost();
-
-        return after - before;
-    }
-
-    /** Apply the move (FOR BASELINE) */
-    private void applyMove(List<Integer> route, Move move) {
-        switch (move.type) {
-            case SWAP_NODES:
-                Collections.swap(route, move.i, move.j);
-                break;
-            case TWO_OPT:
-                // Ensure i < j
-                int i = move.i;
-                int j = move.j;
-                if (i > j) { int temp = i; i = j; j = temp; }
-                reverseSublist(route, i + 1, j);
-                break;
-            case EXCHANGE_SELECTED_UNSELECTED:
-                route.set(move.i, move.j);
-                break;
-        }
-    }
-
-    /** Reverse a sublist (for edge exch) */
-    private void reverseSublist(List<Integer> route, int start, int end) {
-        while (start < end) {
-            Collections.swap(route, start++, end--);
-        }
-    }
-
-    /** Close the route */
-    private List<Integer> closed(List<Integer> route) {
-        if (route.isEmpty()) return new ArrayList<>();
-        List<Integer> r = new ArrayList<>(route);
-        r.add(route.get(0));
-        return r;
-    }
-
-
-
-    /**
-     * MoveType is simplified. For the LM search, we only use
-     * TWO_OPT (intra-edge) and EXCHANGE_SELECTED_UNSELECTED (inter-node).
-     * SWAP_NODES is only for the baseline.
-     */
-    private enum MoveType {
-        SWAP_NODES, // Intra-node (Baseline only)
-        TWO_OPT,    // Intra-edge
-        EXCHANGE_SELECTED_UNSELECTED // Inter-node
-    }
-
-    /**
-     * Move class with static factory methods
-     * to resolve constructor ambiguity.
-     */
-    private static class Move {
-        MoveType type;
-        double delta;
-        int i, j; // For baseline
-        int nodeA, nodeB, nodeC, nodeD; // For LM search
-
-        // Private constructor to be used by factory methods and baseline
-        private Move(MoveType type, double delta) {
-            this.type = type;
-            this.delta = delta;
-        }
-
-        // Constructor for BASELINE moves
-        Move(MoveType type, int i, int j) {
-            this(type, 0.0); // Call private constructor, delta not needed
-            this.i = i;
-            this.j = j;
-        }
-
-
-
-        // Factory for LM 2-opt (intra-edge)
-        // (A,B) and (C,D) are the edges to be removed
-        public static Move forIntraEdge(MoveType type, double delta, int nodeA, int nodeB, int nodeC, int nodeD) {
-            Move move = new Move(type, delta);
-            move.nodeA = nodeA; // A
-            move.nodeB = nodeB; // B (successor of A)
-            move.nodeC = nodeC; // C
-            move.nodeD = nodeD; // D (successor of C)
-            return move;
-        }
-
-        // Factory for LM inter-route
-        // (A,C) and (C,B) are edges to be removed
-        public static Move forInterRoute(MoveType type, double delta, int prev, int next, int nodeInCycle, int nodeOutOfCycle) {
-            Move move = new Move(type, delta);
-            move.nodeA = prev;           // A (prev)
-            move.nodeB = next;           // B (next)
-            move.nodeC = nodeInCycle;    // C (node to swap out)
-            move.nodeD = nodeOutOfCycle; // D (node to swap in)
-            return move;
-        }
-    }
+import java.util.*;
+
+/**
+ * Local Search for TSP.
+ *
+ * Implements three steepest descent algorithms:
+ * 1. Baseline: Re-evaluates the entire neighborhood each iteration.
+ * 2. With Move List (LM): Reuses move evaluations (deltas) from previous iterations.
+ * 3. Delta cache: Keeps the delta of every move and re-evaluates only the moves the last
+ *    move changed, following exactly the same trajectory as the steepest baseline.
+ *
+ * Neighborhood = intra-route (2-opt) + inter-route (node exchange).
+ */
+public class LocalSearch extends TSPSolver {
+
+    private final boolean useSteepest;
+    private final boolean useNodeExchange;
+    private final Random random;
+    private final boolean useMoveList;
+    private final boolean useDeltaCache;
+    private final MoveHeap improvingMoves; // improving moves, best delta first
+    private int[] succ; // succ[node] in the current LM route, -1 for unselected nodes
+
+    // Delta cache, indexed by route position (edge p = (route[p], route[p + 1]))
+    private int[][] twoOptDelta;   // twoOptDelta[p][q], p < q: 2-opt removing edges p and q
+    private int[] twoOptBest;      // q of the first minimum in row p, -1 for an empty row
+    private int[][] interDelta;    // interDelta[p][node]: exchange of position p with an unselected node
+    private int[] interBest;       // node of the first minimum in row p, -1 if none is unselected
+    private boolean[] edgeChanged; // edges whose 2-opt entries the last move recomputed
+
+    // Counters over all solve calls
+    private long evaluations;  // move deltas computed
+    private long appliedMoves;
+
+    public LocalSearch(InstanceBundle bundle,
+                       boolean useSteepest, boolean useNodeExchange, boolean useMoveList) {
+        this(bundle, useSteepest, useNodeExchange, useMoveList, false);
+    }
+
+    /**
+     * @param useDeltaCache steepest 2-opt search that caches move deltas (see solveSteepestCached)
+     */
+    public LocalSearch(InstanceBundle bundle,
+                       boolean useSteepest, boolean useNodeExchange, boolean useMoveList,
+                       boolean useDeltaCache) {
+        super(bundle);
+        // For LM and delta cache search, we MUST use steepest and 2-opt (edge swap)
+        if (useMoveList || useDeltaCache) {
+            this.useSteepest = true;
+            this.useNodeExchange = false; // Assignment implies 2-opt (edge exchange)
+        } else {
+            this.useSteepest = useSteepest;
+            this.useNodeExchange = useNodeExchange;
+        }
+        this.useMoveList = useMoveList;
+        this.useDeltaCache = useDeltaCache && !useMoveList;
+        this.random = new Random();
+
+        this.improvingMoves = new MoveHeap(instance.size(), 1024);
+    }
+
+    /**
+     * Main solver entry point.
+     * Routes to the correct local search implementation based on the 'useMoveList' and
+     * 'useDeltaCache' flags.
+     */
+    public Result solve(List<Integer> initialRoute) {
+        if (useMoveList) {
+            return solveSteepestLM(initialRoute);
+        } else if (useDeltaCache) {
+            return solveSteepestCached(initialRoute);
+        } else {
+            // Use the original baseline method
+            return solveSteepestBaseline(initialRoute);
+        }
+    }
+
+    /** Number of move deltas computed by all solve calls so far */
+    public long getEvaluationCount() {
+        return evaluations;
+    }
+
+    /** Number of moves applied by all solve calls so far */
+    public long getAppliedMoveCount() {
+        return appliedMoves;
+    }
+
+    /**
+     * The Steepest Local Search with Move List (LM).
+     */
+    public Result solveSteepestLM(List<Integer> initialRoute) {
+        Route route = new Route(initialRoute, instance.size());
+
+        // Selected/unselected nodes, kept up to date by applyMoveLM
+        Selection selection = new Selection(initialRoute, instance.size());
+
+        // Successor array for checking edge directions, kept up to date by applyMoveLM
+        succ = new int[instance.size()];
+        Arrays.fill(succ, -1);
+        relink(route, 0, route.size());
+
+        // Clear the move list for a new run
+        improvingMoves.clear();
+        int currentCost = computeTotalCost(route);
+        int iteration = 0;
+        int appliedDelta;
+
+        while ((appliedDelta = performSteepestStepLM(route, selection)) != 0) {
+            // a stored delta stays exact while the edges it was computed for exist
+            currentCost += appliedDelta;
+            appliedMoves++;
+            iteration++;
+            if (VERIFY_COST && iteration % VERIFY_INTERVAL == 0) {
+                verifyCost(route, currentCost);
+            }
+        }
+        if (VERIFY_COST) {
+            verifyCost(route, currentCost);
+        }
+
+        return new Result(route.toClosedList(), currentCost);
+    }
+
+    /**
+     * Performs one step of the steepest search using the LM.
+     * Finds the best valid move from the list, applies it, and updates the list.
+     * Returns the delta of the applied move, or 0 if no improvement was made.
+     */
+    private int performSteepestStepLM(Route route, Selection selection) {
+
+        // 1. Populate LM if it's empty (first iteration or after a local optimum)
+        if (improvingMoves.isEmpty()) {
+            populateMoveList(route, selection);
+            if (improvingMoves.isEmpty()) {
+                return 0; // No improving moves found at all
+            }
+        }
+
+        // 2. Recheck moves in LM, best first
+        while (!improvingMoves.isEmpty()) {
+            int move = improvingMoves.peek();
+
+            // 3. Validate the move against the current solution
+            ValidationResult val = validateMove(move);
+
+            if (!val.keepMove) {
+                improvingMoves.remove(move); // Remove move, edges no longer exist
+                continue;
+            }
+
+            if (!val.applyMove) {
+                // Keep move, but don't apply (e.g., direction is wrong)
+                improvingMoves.skip(move);
+                continue;
+            }
+
+            // 4. Apply the move
+            improvingMoves.restoreSkipped();
+            MoveType type = MOVE_TYPES[improvingMoves.type(move)];
+            int delta = improvingMoves.delta(move);
+            Set<Integer> changedNodes = applyMoveLM(route, selection, move, val);
+            improvingMoves.remove(move); // Remove the move we just applied
+
+            updateLocalMoves(route, selection, changedNodes, type);
+
+            return delta; // Found and applied the best move
+        }
+
+        improvingMoves.restoreSkipped();
+        if (improvingMoves.isEmpty()) {
+            // every stored move was stale: repopulate as if the list had been emptied
+            return performSteepestStepLM(route, selection);
+        }
+        return 0; // No valid improving move found in the list
+    }
+
+    /**
+     * Fills the improvingMoves with all possible improving moves
+     * from the current solution.
+     */
+    private void populateMoveList(Route route, Selection selection) {
+        int n = route.size();
+        improvingMoves.clear();
+
+        for (int i = 0; i < n; i++) {
+            int nodeInCycle = route.get(i);
+            for (int nodeOutOfCycle = selection.nextUnselected(0); nodeOutOfCycle >= 0;
+                 nodeOutOfCycle = selection.nextUnselected(nodeOutOfCycle + 1)) {
+                int delta = deltaInter(route, i, nodeOutOfCycle);
+                if (delta < 0) {
+                    int prev = route.getPrev(i);
+                    int next = route.getNext(i);
+                    addInterRoute(delta, prev, next, nodeInCycle, nodeOutOfCycle);
+                }
+            }
+        }
+
+
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                // This delta calculation is for 2-opt
+                int delta = deltaTwoOpt(route, i, j);
+
+                if (delta < 0) {
+                    int a = route.get(i);
+                    int b = route.getNext(i);
+                    int c = route.get(j);
+                    int d = route.getNext(j);
+
+
+                    if (c == b) continue; // Avoid adjacent/overlapping
+
+                    // Add moves for both forward and reverse
+                    // We store the "forward" move (A-B, C-D)
+                    addIntraEdge(delta, a, b, c, d);
+                }
+            }
+        }
+    }
+
+    // LM 2-opt (intra-edge): (A,B) and (C,D) are the edges to be removed,
+    // B the successor of A and D the successor of C
+    private void addIntraEdge(int delta, int nodeA, int nodeB, int nodeC, int nodeD) {
+        improvingMoves.insert(MoveType.TWO_OPT.ordinal(), delta, nodeA, nodeB, nodeC, nodeD);
+    }
+
+    // LM inter-route: (A,C) and (C,B) are the edges to be removed,
+    // C swapped out for D
+    private void addInterRoute(int delta, int prev, int next, int nodeInCycle, int nodeOutOfCycle) {
+        improvingMoves.insert(MoveType.EXCHANGE_SELECTED_UNSELECTED.ordinal(), delta,
+                prev, next, nodeInCycle, nodeOutOfCycle);
+    }
+
+    /**
+     * Validates a move from the LM against the current solution.
+     * A move whose nodes were not touched since it was stored still has its edges, so only
+     * their direction needs checking.
+     */
+    private ValidationResult validateMove(int move) {
+        if (improvingMoves.isStale(move)) {
+            return REMOVE; // Case 1: Remove, edges no longer exist
+        }
+        int A = improvingMoves.node(move, 0);
+        int B = improvingMoves.node(move, 1);
+        int C = improvingMoves.node(move, 2);
+        int D = improvingMoves.node(move, 3);
+        switch (MOVE_TYPES[improvingMoves.type(move)]) {
+            case EXCHANGE_SELECTED_UNSELECTED:
+                // A=prev, B=next, C=inCycle, D=outOfCycle
+                // Check for forward direction: (A -> C -> B)
+                if (hasEdge(A, C) && hasEdge(C, B)) {
+                    return APPLY_FORWARD; // Case 3: Apply forward
+                }
+                // Check for reversed direction: (B -> C -> A)
+                if (hasEdge(B, C) && hasEdge(C, A)) {
+                    return APPLY_REVERSED; // Case 3: Apply reversed
+                }
+                return KEEP; // Case 2: Keep
+
+            case TWO_OPT:
+                // A=a, B=b, C=c, D=d
+                // Check for forward direction: (A -> B) and (C -> D)
+                if (hasEdge(A, B) && hasEdge(C, D)) {
+                    return APPLY_FORWARD; // Case 3: Apply forward
+                }
+                // Check for reversed direction: (B -> A) and (D -> C)
+                if (hasEdge(B, A) && hasEdge(D, C)) {
+                    return APPLY_REVERSED; // Case 3: Apply reversed
+                }
+                return KEEP; // Case 2: Keep
+        }
+        return REMOVE;
+    }
+
+    /**
+     * Applies a move that is defined by NODES, not indices.
+     * This is different from the baseline 'applyMove'.
+     * Returns the set of nodes that were involved in the change.
+     */
+    private Set<Integer> applyMoveLM(Route route, Selection selection, int move, ValidationResult val) {
+        Set<Integer> changedNodes = new HashSet<>();
+        int nodeA = improvingMoves.node(move, 0);
+        int nodeB = improvingMoves.node(move, 1);
+        int nodeC = improvingMoves.node(move, 2);
+        int nodeD = improvingMoves.node(move, 3);
+
+        switch (MOVE_TYPES[improvingMoves.type(move)]) {
+            case EXCHANGE_SELECTED_UNSELECTED: {
+                // A=prev, B=next, C=inCycle, D=outOfCycle
+                int idxC = route.indexOf(nodeC);
+
+                if (idxC != -1) {
+                    route.set(idxC, nodeD);
+                    succ[nodeC] = -1;
+                    relink(route, idxC, 1);
+                    selection.exchange(nodeC, nodeD);
+
+                    changedNodes.add(nodeA); // prev
+                    changedNodes.add(nodeB); // next
+                    changedNodes.add(nodeC);      // old node (now in remaining)
+                    changedNodes.add(nodeD);      // new node (now in route)
+                }
+                break;
+            }
+
+            case TWO_OPT: {
+                // A=a, B=b, C=c, D=d
+                int startIdx, endIdx;
+
+                if (!val.applyReversed) {
+                    // Forward: A->B, C->D. Reverse (B...C)
+                    startIdx = route.indexOf(nodeB);
+                    endIdx = route.indexOf(nodeC);
+                } else {
+                    // Reversed: B->A, D->C. Reverse (A...D)
+                    startIdx = route.indexOf(nodeA);
+                    endIdx = route.indexOf(nodeD);
+                }
+
+                // wraps around the end of the order if startIdx > endIdx
+                route.reverse(startIdx, endIdx);
+                int length = startIdx <= endIdx ? endIdx - startIdx + 1 : route.size() - startIdx + endIdx + 1;
+                relink(route, startIdx, length);
+
+                changedNodes.add(nodeA);
+                changedNodes.add(nodeB);
+                changedNodes.add(nodeC);
+                changedNodes.add(nodeD);
+                break;
+            }
+        }
+        return changedNodes;
+    }
+
+    /**
+     * Re-evaluates moves involving the nodes that just changed and
+     * adds new improving moves to the LM.
+     */
+    private void updateLocalMoves(Route route, Selection selection,
+                                  Set<Integer> changedNodes, MoveType lastMoveType) {
+        int n = route.size();
+
+        // Stored moves on the changed nodes become stale and are dropped when they reach the top
+        for (int node : changedNodes) {
+            improvingMoves.touch(node);
+        }
+
+        Set<Integer> indicesToCheck = new HashSet<>();
+        for (int node : changedNodes) {
+            int idx = route.indexOf(node); // Check nodes now in the route
+            if (idx != -1) {
+                indicesToCheck.add((idx - 1 + n) % n); // neighbor
+                indicesToCheck.add(idx);               // self
+                indicesToCheck.add((idx + 1) % n); // neighbor
+            }
+        }
+
+        // A. Re-evaluate neighbors of affected positions with all remaining nodes
+        for (int i : indicesToCheck) {
+            int nodeInCycle = route.get(i);
+            for (int nodeOutOfCycle = selection.nextUnselected(0); nodeOutOfCycle >= 0;
+                 nodeOutOfCycle = selection.nextUnselected(nodeOutOfCycle + 1)) {
+                int delta = deltaInter(route, i, nodeOutOfCycle);
+                if (delta < 0) {
+                    int prev = route.getPrev(i);
+                    int next = route.getNext(i);
+                    // *** Use static factory method ***
+                    addInterRoute(delta, prev, next, nodeInCycle, nodeOutOfCycle);
+                }
+            }
+        }
+
+        // B. Re-evaluate all cycle nodes with the newly available remaining node
+        if (lastMoveType == MoveType.EXCHANGE_SELECTED_UNSELECTED) {
+            // Find the node that was just moved from the route to 'remaining'
+            int newNodeInRemaining = -1;
+            for (int node : changedNodes) {
+                if (!selection.isSelected(node)) {
+                    newNodeInRemaining = node;
+                    break;
+                }
+            }
+
+            if (newNodeInRemaining != -1) {
+                for (int i = 0; i < n; i++) {
+                    int nodeInCycle = route.get(i);
+                    int delta = deltaInter(route, i, newNodeInRemaining);
+                    if (delta < 0) {
+                        int prev = route.getPrev(i);
+                        int next = route.getNext(i);
+                        addInterRoute(delta, prev, next, nodeInCycle, newNodeInRemaining);
+                    }
+                }
+            }
+        }
+        // Find all nodes in the cycle that were changed (A, B, C, D)
+        // Check all new pairs (A', C') where A' is a changed node
+        for (int nodeA_prime : changedNodes) {
+            int i = route.indexOf(nodeA_prime);
+            if (i == -1) continue;
+
+            for (int j = 0; j < n; j++) {
+                if (i == j) continue;
+
+                // Ensure i < j for consistent delta calculation
+                int idx_i = i, idx_j = j;
+                if (idx_i > idx_j) {
+                    idx_i = j; idx_j = i;
+                }
+
+                // This delta calculation is for 2-opt
+                int delta = deltaTwoOpt(route, idx_i, idx_j);
+
+                if (delta < 0) {
+                    int a = route.get(idx_i);
+                    int b = route.getNext(idx_i);
+                    int c = route.get(idx_j);
+                    int d = route.getNext(idx_j);
+
+                    if (c == b) continue;
+
+                    // *** Use static factory method ***
+                    addIntraEdge(delta, a, b, c, d);
+                }
+            }
+        }
+    }
+
+
+    private static class ValidationResult {
+        final boolean applyMove;
+        final boolean keepMove;
+        final boolean applyReversed;
+
+        ValidationResult(boolean apply, boolean keep, boolean reversed) {
+            this.applyMove = apply;
+            this.keepMove = keep;
+            this.applyReversed = reversed;
+        }
+    }
+
+    private static final ValidationResult REMOVE = new ValidationResult(false, false, false);
+    private static final ValidationResult KEEP = new ValidationResult(false, true, false);
+    private static final ValidationResult APPLY_FORWARD = new ValidationResult(true, true, false);
+    private static final ValidationResult APPLY_REVERSED = new ValidationResult(true, true, true);
+
+    /**
+     * Recomputes succ for the nodes at positions from..from+length-1 and their predecessor in
+     * the route, the only links changed by reversing or replacing that range.
+     */
+    private void relink(Route route, int from, int length) {
+        int n = route.size();
+        int count = Math.min(n, length + 1);
+        for (int k = 0, i = (from - 1 + n) % n; k < count; k++, i = (i + 1) % n) {
+            int node = route.get(i);
+            succ[node] = route.getNext(i);
+        }
+    }
+
+    /** Whether the route contains the directed edge u -> v */
+    private boolean hasEdge(int u, int v) {
+        return succ[u] == v;
+    }
+
+
+
+    /**
+     * This is the ORIGINAL 'solve' method, renamed to be the baseline.
+     * It runs a standard steepest local search.
+     */
+    public Result solveSteepestBaseline(List<Integer> initialRoute) {
+        Route route = new Route(initialRoute, instance.size());
+        Selection selection = new Selection(initialRoute, instance.size());
+
+        int currentCost = computeTotalCost(route);
+        boolean improved;
+        int iteration = 0;
+
+        do {
+            improved = false;
+            Move baselineBestMove = null; // Use the old Move class
+            int bestDelta = 0;
+
+            List<Move> neighborhood = generateNeighborhood(route, selection);
+
+            if (!useSteepest) Collections.shuffle(neighborhood, random);
+
+            for (Move move : neighborhood) {
+                int delta = computeDelta(route, move);
+                if (delta < 0) {
+                    if (useSteepest) {
+                        if (baselineBestMove == null || delta < bestDelta) {
+                            baselineBestMove = move;
+                            bestDelta = delta;
+                        }
+                    } else {
+                        applyMove(route, selection, move);
+                        appliedMoves++;
+                        currentCost += delta;
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+
+            if (useSteepest && baselineBestMove != null) {
+                applyMove(route, selection, baselineBestMove);
+                appliedMoves++;
+                currentCost += bestDelta;
+                improved = true;
+            }
+
+            iteration++;
+            if (VERIFY_COST && (iteration % VERIFY_INTERVAL == 0 || !improved)) {
+                verifyCost(route, currentCost);
+            }
+
+        } while (improved);
+
+        // currentCost was kept up to date by the move deltas
+        return new Result(route.toClosedList(), currentCost);
+    }
+
+    /**
+     * Steepest search over the baseline 2-opt + exchange neighborhood that keeps the delta of
+     * every move in primitive arrays. After a move only the entries it changed are
+     * re-evaluated, and the best move is found from per-row minima. Ties are broken in the
+     * order generateNeighborhood lists the moves, so the result is the same as the baseline.
+     *
+     * A 2-opt reversing route[i+1..j] changes the 2-opt entries of edges i and j and of
+     * pairs with one edge inside the reversed path; pairs with both edges inside keep their
+     * delta (distances are symmetric) and are only mirrored. An exchange row depends on the
+     * neighbours of its position, so only the rows at both ends of the path are re-evaluated
+     * and the rows inside are mirrored. An exchange at position p changes edges p - 1 and p,
+     * exchange rows p - 1 to p + 1 and one column per exchanged node.
+     */
+    public Result solveSteepestCached(List<Integer> initialRoute) {
+        Route route = new Route(initialRoute, instance.size());
+        Selection selection = new Selection(initialRoute, instance.size());
+        int n = route.size();
+
+        twoOptDelta = new int[n][n];
+        twoOptBest = new int[n];
+        interDelta = new int[n][instance.size()];
+        interBest = new int[n];
+        edgeChanged = new boolean[n];
+        for (int p = 0; p < n; p++) {
+            for (int q = p + 1; q < n; q++) {
+                twoOptDelta[p][q] = deltaTwoOpt(route, p, q);
+            }
+            rescanTwoOpt(p);
+            evaluateInterRow(route, selection, p);
+        }
+
+        int currentCost = computeTotalCost(route);
+        int iteration = 0;
+        int[] changed = new int[n];
+
+        while (true) {
+            // Best move in the baseline order: 2-opt rows first, then exchange rows
+            MoveType bestType = null;
+            int bestI = -1, bestJ = -1, bestDelta = 0;
+            for (int p = 0; p < n; p++) {
+                int q = twoOptBest[p];
+                if (q != -1 && twoOptDelta[p][q] < bestDelta) {
+                    bestType = MoveType.TWO_OPT; bestI = p; bestJ = q; bestDelta = twoOptDelta[p][q];
+                }
+            }
+            for (int p = 0; p < n; p++) {
+                int node = interBest[p];
+                if (node != -1 && interDelta[p][node] < bestDelta) {
+                    bestType = MoveType.EXCHANGE_SELECTED_UNSELECTED; bestI = p; bestJ = node;
+                    bestDelta = interDelta[p][node];
+                }
+            }
+            if (bestType == null) break;
+
+            int count = 0;
+            if (bestType == MoveType.TWO_OPT) {
+                int i = bestI, j = bestJ;
+                route.reverse(i + 1, j);
+                mirrorTwoOpt(i, j);
+                for (int p = i; p <= j; p++) {
+                    changed[count++] = p;
+                }
+                for (int p = i; p <= j; p++) {
+                    for (int q = 0; q < n; q++) {
+                        // pairs with both edges inside the reversed path kept their delta
+                        boolean inside = p > i && p < j && q > i && q < j;
+                        if (q != p && !inside && (q < i || q > j || q > p)) {
+                            setTwoOpt(route, p, q);
+                        }
+                    }
+                }
+                mirrorInterRows(i + 2, j - 1);
+                // the ends of the path and their outer neighbours got new neighbours
+                evaluateInterRow(route, selection, i);
+                evaluateInterRow(route, selection, i + 1);
+                if (j != i + 1) evaluateInterRow(route, selection, j);
+                evaluateInterRow(route, selection, (j + 1) % n);
+            } else {
+                int p = bestI;
+                int oldNode = route.get(p);
+                int newNode = bestJ;
+                selection.exchange(oldNode, newNode);
+                route.set(p, newNode);
+
+                int prev = (p - 1 + n) % n, next = (p + 1) % n;
+                changed[count++] = prev;
+                changed[count++] = p;
+                for (int k = 0; k < 2; k++) {
+                    int e = changed[k];
+                    for (int q = 0; q < n; q++) {
+                        if (q != e && !(k == 1 && q == prev)) setTwoOpt(route, e, q);
+                    }
+                }
+                for (int row = 0; row < n; row++) {
+                    if (row == prev || row == p || row == next) {
+                        evaluateInterRow(route, selection, row);
+                    } else {
+                        updateInterColumn(route, selection, row, oldNode, newNode);
+                    }
+                }
+            }
+            refreshTwoOptMinima(changed, count);
+
+            currentCost += bestDelta;
+            appliedMoves++;
+            iteration++;
+            if (VERIFY_COST && iteration % VERIFY_INTERVAL == 0) {
+                verifyCost(route, currentCost);
+            }
+        }
+        if (VERIFY_COST) {
+            verifyCost(route, currentCost);
+        }
+
+        return new Result(route.toClosedList(), currentCost);
+    }
+
+    /** Re-evaluates the 2-opt entry of edges p and q */
+    private void setTwoOpt(Route route, int p, int q) {
+        if (p < q) twoOptDelta[p][q] = deltaTwoOpt(route, p, q);
+        else twoOptDelta[q][p] = deltaTwoOpt(route, q, p);
+    }
+
+    /**
+     * After reversing route[i+1..j], moves the entries of pairs with both edges inside the
+     * path to their new positions: edge p becomes edge i + j - p
+     */
+    private void mirrorTwoOpt(int i, int j) {
+        int s = i + j;
+        for (int p = i + 1; p < j; p++) {
+            for (int q = p + 1; q < j && p < s - q; q++) {
+                int t = twoOptDelta[p][q];
+                twoOptDelta[p][q] = twoOptDelta[s - q][s - p];
+                twoOptDelta[s - q][s - p] = t;
+            }
+        }
+    }
+
+    /** Swaps the exchange rows of positions from..to end for end, with their minima */
+    private void mirrorInterRows(int from, int to) {
+        for (; from < to; from++, to--) {
+            int[] row = interDelta[from];
+            interDelta[from] = interDelta[to];
+            interDelta[to] = row;
+            int best = interBest[from];
+            interBest[from] = interBest[to];
+            interBest[to] = best;
+        }
+    }
+
+    /**
+     * Updates the 2-opt row minima after the entries of the given edges were recomputed:
+     * their rows are rescanned, other rows only compare the changed columns unless their
+     * minimum was in one of them
+     */
+    private void refreshTwoOptMinima(int[] changed, int count) {
+        int n = twoOptBest.length;
+        for (int k = 0; k < count; k++) edgeChanged[changed[k]] = true;
+        for (int p = 0; p < n; p++) {
+            int best = twoOptBest[p];
+            if (edgeChanged[p] || (best != -1 && edgeChanged[best])) {
+                rescanTwoOpt(p);
+                continue;
+            }
+            for (int k = 0; k < count; k++) {
+                int q = changed[k];
+                if (q <= p) continue;
+                int delta = twoOptDelta[p][q];
+                int bestDelta = twoOptDelta[p][best];
+                if (delta < bestDelta || (delta == bestDelta && q < best)) best = q;
+            }
+            twoOptBest[p] = best;
+        }
+        for (int k = 0; k < count; k++) edgeChanged[changed[k]] = false;
+    }
+
+    private void rescanTwoOpt(int p) {
+        int[] row = twoOptDelta[p];
+        int best = -1;
+        for (int q = p + 1; q < row.length; q++) {
+            if (best == -1 || row[q] < row[best]) best = q;
+        }
+        twoOptBest[p] = best;
+    }
+
+    /** Re-evaluates the exchange row of position p over all unselected nodes */
+    private void evaluateInterRow(Route route, Selection selection, int p) {
+        int[] row = interDelta[p];
+        int best = -1;
+        for (int node = selection.nextUnselected(0); node >= 0; node = selection.nextUnselected(node + 1)) {
+            row[node] = deltaInter(route, p, node);
+            if (best == -1 || row[node] < row[best]) best = node;
+        }
+        interBest[p] = best;
+    }
+
+    /**
+     * After an exchange elsewhere in the route: evaluates the column of the node that left the
+     * route and drops the column of the node that entered it
+     */
+    private void updateInterColumn(Route route, Selection selection, int p, int oldNode, int newNode) {
+        int[] row = interDelta[p];
+        row[oldNode] = deltaInter(route, p, oldNode);
+        int best = interBest[p];
+        if (best == newNode) {
+            rescanInter(selection, p);
+        } else if (best == -1 || row[oldNode] < row[best] || (row[oldNode] == row[best] && oldNode < best)) {
+            interBest[p] = oldNode;
+        }
+    }
+
+    private void rescanInter(Selection selection, int p) {
+        int[] row = interDelta[p];
+        int best = -1;
+        for (int node = selection.nextUnselected(0); node >= 0; node = selection.nextUnselected(node + 1)) {
+            if (best == -1 || row[node] < row[best]) best = node;
+        }
+        interBest[p] = best;
+    }
+
+    /** Generate combined intra- and inter-route neighborhood (FOR BASELINE) */
+    private List<Move> generateNeighborhood(Route route, Selection selection) {
+        List<Move> moves = new ArrayList<>();
+        int n = route.size();
+
+        if (useNodeExchange) {
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    moves.add(new Move(MoveType.SWAP_NODES, i, j));
+                }
+            }
+        } else { // 2-opt
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    moves.add(new Move(MoveType.TWO_OPT, i, j));
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            for (int node = selection.nextUnselected(0); node >= 0; node = selection.nextUnselected(node + 1)) {
+                moves.add(new Move(MoveType.EXCHANGE_SELECTED_UNSELECTED, i, node));
+            }
+        }
+
+        return moves;
+    }
+
+    /** Compute delta change for given move (FOR BASELINE) */
+    private int computeDelta(Route route, Move move) {
+        switch (move.type) {
+            case SWAP_NODES:
+                return deltaSwap(route, move.i, move.j);
+            case TWO_OPT:
+                return deltaTwoOpt(route, move.i, move.j);
+            case EXCHANGE_SELECTED_UNSELECTED:
+                return deltaInter(route, move.i, move.j);
+            default:
+                return 0;
+        }
+    }
+
+    /** Delta for swapping two nodes */
+    private int deltaSwap(Route route, int i, int j) {
+        evaluations++;
+        int n = route.size();
+        if (i == j) return 0;
+
+        // Handle adjacent swap (which is 2-opt, but in node-swap logic)
+        if (i + 1 == j || (i == 0 && j == n - 1)) {
+            // The last node comes right before the first one
+            if (i + 1 != j) { i = n - 1; j = 0; }
+
+            int ni = route.get(i);
+            int nj = route.get(j);
+            int iPrev = route.getPrev(i);
+            int jNext = route.getNext(j);
+
+            int before = distance(iPrev, ni) + distance(ni, nj) + distance(nj, jNext);
+            int after = distance(iPrev, nj) + distance(nj, ni) + distance(ni, jNext);
+            return after - before;
+        }
+
+        int ni = route.get(i);
+        int nj = route.get(j);
+        int iPrev = route.getPrev(i);
+        int iNext = route.getNext(i);
+        int jPrev = route.getPrev(j);
+        int jNext = route.getNext(j);
+
+        int before = distance(iPrev, ni) + distance(ni, iNext) +
+                distance(jPrev, nj) + distance(nj, jNext);
+        int after = distance(iPrev, nj) + distance(nj, iNext) +
+                distance(jPrev, ni) + distance(ni, jNext);
+
+        return after - before;
+    }
+
+    /** * Delta for edge reversal
+     */
+    private int deltaTwoOpt(Route route, int i, int j) {
+        evaluations++;
+        // Ensure i < j
+        if (i > j) { int temp = i; i = j; j = temp; }
+
+
+        int a = route.get(i);
+        int b = route.getNext(i);
+        int c = route.get(j);
+        int d = route.getNext(j);
+
+        int before = distance(a, b) + distance(c, d);
+        int after = distance(a, c) + distance(b, d);
+        return after - before;
+    }
+
+    /**
+     * Delta for inter-route (selected/unselected) swap.
+     */
+    private int deltaInter(Route route, int selectedIndex, int unselectedNode) {
+        evaluations++;
+        int selectedNode = route.get(selectedIndex);
+        int prev = route.getPrev(selectedIndex);
+        int next = route.getNext(selectedIndex);
+
+        // arc costs include the cost of the node being entered
+        int before = arcCost(prev, selectedNode) + distance(selectedNode, next);
+        int after = arcCost(prev, unselectedNode) + distance(unselectedNode, next);
+
+        return after - before;
+    }
+
+    /** Apply the move (FOR BASELINE) */
+    private void applyMove(Route route, Selection selection, Move move) {
+        switch (move.type) {
+            case SWAP_NODES:
+                route.swap(move.i, move.j);
+                break;
+            case TWO_OPT:
+                // Ensure i < j
+                int i = move.i;
+                int j = move.j;
+                if (i > j) { int temp = i; i = j; j = temp; }
+                route.reverse(i + 1, j);
+                break;
+            case EXCHANGE_SELECTED_UNSELECTED:
+                selection.exchange(route.get(move.i), move.j);
+                route.set(move.i, move.j);
+                break;
+        }
+    }
+
+
+
+
+    /**
+     * MoveType is simplified. For the LM search, we only use
+     * TWO_OPT (intra-edge) and EXCHANGE_SELECTED_UNSELECTED (inter-node).
+     * SWAP_NODES is only for the baseline.
+     */
+    private enum MoveType {
+        SWAP_NODES, // Intra-node (Baseline only)
+        TWO_OPT,    // Intra-edge
+        EXCHANGE_SELECTED_UNSELECTED // Inter-node
+    }
+
+    // MoveType by ordinal, the type code stored in the LM heap
+    private static final MoveType[] MOVE_TYPES = MoveType.values();
+
+    /**
+     * Baseline move; LM moves live in the MoveHeap.
+     */
+    private static class Move {
+        MoveType type;
+        int i, j;
+
+        Move(MoveType type, int i, int j) {
+            this.type = type;
+            this.i = i;
+            this.j = j;
+        }
+    }
 }
\ No newline at end of file
@@ -1,36 +1,77 @@
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-public class TSPSolver {
-
-    protected final double[][] distanceMatrix;
-    protected final List<Node> nodes;
-    protected final int targetCount;
-
-    public TSPSolver(double[][] distanceMatrix, List<Node> nodes) {
-        this.distanceMatrix = distanceMatrix;
-        this.nodes = nodes;
-        this.targetCount = Math.max(2, (int) Math.ceil(nodes.size() / 2.0));
-    }
-
-    protected int countUsed(boolean[] used) {
-        int count = 0;
-        for (boolean b : used) if (b) count++;
-        return count;
-    }
-
-    protected double computeTotalCost(List<Integer> route) {
-        double cost = 0.0;
-        for (int i = 0; i < route.size() - 1; i++) {
-            int a = route.get(i);
-            int b = route.get(i + 1);
-            cost += distanceMatrix[a][b] + nodes.get(a).getCost();
-        }
-        return cost;
-    }
-
-    protected int roundToInt(double value){
-        return (int) Math.round(value);
-    }
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TSPSolver {
+
+    protected final InstanceBundle bundle;
+    protected final DistanceOracle distances;
+    protected final Instance instance;
+    protected final int targetCount;
+
+    public TSPSolver(InstanceBundle bundle) {
+        this.bundle = bundle;
+        this.distances = bundle.getDistances();
+        this.instance = bundle.getInstance();
+        this.targetCount = Math.max(2, (int) Math.ceil(instance.size() / 2.0));
+    }
+
+    protected int countUsed(boolean[] used) {
+        int count = 0;
+        for (boolean b : used) if (b) count++;
+        return count;
+    }
+
+    /** Rounded Euclidean distance between nodes a and b */
+    protected final int distance(int a, int b) {
+        return distances.getDistance(a, b);
+    }
+
+    /** Distance from a to b plus the cost of visiting b */
+    protected final int arcCost(int a, int b) {
+        return distances.getArcCost(a, b);
+    }
+
+    /**
+     * Set with -DverifyCost=true: solvers that track their cost by applying move deltas then
+     * recompute it every VERIFY_INTERVAL moves and at the end, and fail if the two differ
+     */
+    protected static final boolean VERIFY_COST = Boolean.getBoolean("verifyCost");
+    protected static final int VERIFY_INTERVAL = 100;
+
+    /** Total cost of a tour */
+    protected int computeTotalCost(Tour tour) {
+        if (tour.size() == 0) return 0;
+        int cost = 0;
+        int a = tour.first();
+        for (int i = 0; i < tour.size(); i++) {
+            int b = tour.next(a);
+            cost += arcCost(a, b);
+            a = b;
+        }
+        return cost;
+    }
+
+    /** Throws if the cost tracked by a solver differs from the actual cost of its tour */
+    protected void verifyCost(Tour tour, int trackedCost) {
+        int actualCost = computeTotalCost(tour);
+        if (actualCost != trackedCost) {
+            throw new IllegalStateException(STR."\{getClass().getSimpleName()}: tracked cost \{trackedCost} differs from actual cost \{actualCost}");
+        }
+    }
+
+    /** Total cost of a closed route (first node repeated at the end) */
+    protected int computeTotalCost(List<Integer> route) {
+        int cost = 0;
+        for (int i = 0; i < route.size() - 1; i++) {
+            int a = route.get(i);
+            int b = route.get(i + 1);
+            cost += arcCost(a, b);
+        }
+        return cost;
+    }
+
+    protected int roundToInt(double value){
+        return (int) Math.round(value);
+    }
 }
\ No newline at end of file
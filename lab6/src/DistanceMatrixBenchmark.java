@@ -0,0 +1,81 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures how long building a DistanceMatrix takes as the instance grows, comparing
+ * the original full-matrix loop with the sequential and parallel upper-triangle builds.
+ * Writes the median times to evaluation/distance_matrix_build_times.csv.
+ */
+public class DistanceMatrixBenchmark {
+
+    private static final int[] SIZES = {200, 500, 1000, 2000, 4000, 8000};
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 7;
+    private static final int COORDINATE_RANGE = 4000;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("n,full_ms,triangle_ms,parallel_ms\n");
+
+        System.out.println(STR."Parallelism: \{Runtime.getRuntime().availableProcessors()} processors");
+        System.out.println("n | Full | Triangle | Parallel (median ms)");
+        for (int n : SIZES) {
+            double[] x = new double[n];
+            double[] y = new double[n];
+            int[] costs = new int[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = random.nextInt(COORDINATE_RANGE);
+                y[i] = random.nextInt(COORDINATE_RANGE);
+                costs[i] = random.nextInt(COORDINATE_RANGE / 2);
+            }
+
+            double full = medianMs(() -> buildFull(x, y, costs));
+            double triangle = medianMs(() -> new DistanceMatrix(x, y, costs, false));
+            double parallel = medianMs(() -> new DistanceMatrix(x, y, costs, true));
+
+            System.out.printf("%d | %.2f | %.2f | %.2f%n", n, full, triangle, parallel);
+            csv.append(n).append(",").append(full).append(",").append(triangle).append(",").append(parallel).append("\n");
+        }
+
+        try (FileWriter writer = new FileWriter("evaluation/distance_matrix_build_times.csv")) {
+            writer.write(csv.toString());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reference build: every cell of both matrices computed in one sequential pass
+     */
+    private static int[][] buildFull(double[] x, double[] y, int[] costs) {
+        int n = x.length;
+        int[] matrix = new int[n * n];
+        int[] arcCosts = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                double dx = x[i] - x[j];
+                double dy = y[i] - y[j];
+                matrix[row + j] = (int) Math.round(Math.sqrt(dx * dx + dy * dy));
+                arcCosts[row + j] = matrix[row + j] + costs[j];
+            }
+        }
+        return new int[][]{matrix, arcCosts};
+    }
+
+    private static double medianMs(Runnable build) {
+        for (int r = 0; r < WARMUP_RUNS; r++) {
+            build.run();
+        }
+        double[] times = new double[MEASURED_RUNS];
+        for (int r = 0; r < MEASURED_RUNS; r++) {
+            long start = System.nanoTime();
+            build.run();
+            times[r] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[MEASURED_RUNS / 2];
+    }
+}
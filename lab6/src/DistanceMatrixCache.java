@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Persistent on-disk cache of distance matrices.
+ *
+ * The matrix of an instance is written once to cacheDir/name-hash.dm, where hash is
+ * taken from the SHA-256 of the instance file, and later runs map that file read-only
+ * instead of recomputing n * n square roots.
+ *
+ * File layout: a 16-byte header (magic, version, n, reserved) followed by n * n
+ * little-endian int distances in row-major order.
+ */
+public class DistanceMatrixCache {
+
+    private static final int MAGIC = 0x444D4154; // "DMAT"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private DistanceMatrixCache() {
+    }
+
+    /**
+     * Returns the distance matrix of the given instance, building the cache file first if needed
+     * @param instanceFile the instance CSV the coordinates were read from (used as the cache key)
+     * @param cacheDir directory holding the cache files
+     * @param x array of x-coordinates
+     * @param y array of y-coordinates
+     * @param costs array of node costs
+     */
+    public static DistanceOracle load(Path instanceFile, Path cacheDir,
+                                      double[] x, double[] y, int[] costs) throws IOException {
+        if (x.length != y.length || x.length != costs.length) {
+            throw new IllegalArgumentException("x, y and costs arrays must have the same length");
+        }
+        Path cacheFile = cacheDir.resolve(STR."\{baseName(instanceFile)}-\{hash(instanceFile)}.dm");
+        if (!Files.exists(cacheFile)) {
+            build(cacheFile, x, y);
+        }
+        return map(cacheFile, costs);
+    }
+
+    /**
+     * Computes the distances into a temporary file and moves it into place atomically,
+     * so that parallel runs never map a half-written matrix
+     */
+    private static void build(Path cacheFile, double[] x, double[] y) throws IOException {
+        Files.createDirectories(cacheFile.getParent());
+        Path tmp = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+        int n = x.length;
+        long size = HEADER_BYTES + (long) n * n * Integer.BYTES;
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            segment.set(MappedDistanceMatrix.INT, 0, MAGIC);
+            segment.set(MappedDistanceMatrix.INT, 4, VERSION);
+            segment.set(MappedDistanceMatrix.INT, 8, n);
+
+            MemorySegment body = segment.asSlice(HEADER_BYTES);
+            for (int i = 0; i < n; i++) {
+                long row = (long) i * n;
+                for (int j = 0; j < n; j++) {
+                    double dx = x[i] - x[j];
+                    double dy = y[i] - y[j];
+                    body.setAtIndex(MappedDistanceMatrix.INT, row + j, (int) Math.round(Math.sqrt(dx * dx + dy * dy)));
+                }
+            }
+            segment.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps an existing cache file read-only; the mapping outlives the channel
+     */
+    private static DistanceOracle map(Path cacheFile, int[] costs) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+            if (segment.byteSize() < HEADER_BYTES
+                    || segment.get(MappedDistanceMatrix.INT, 0) != MAGIC
+                    || segment.get(MappedDistanceMatrix.INT, 4) != VERSION
+                    || segment.get(MappedDistanceMatrix.INT, 8) != costs.length) {
+                throw new IOException(STR."invalid distance matrix cache file: \{cacheFile}");
+            }
+            return new MappedDistanceMatrix(segment.asSlice(HEADER_BYTES), costs);
+        }
+    }
+
+    private static String hash(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[1 << 16];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Don't-look bits kept as a FIFO queue of the nodes whose bit is off. A local search polls a
+ * node, looks for an improving move around it, and activates the endpoints of every edge the
+ * move changes; a node whose search fails stays out of the queue until it is activated again.
+ */
+public class DontLookBits {
+    private final int[] queue;     // circular buffer of the active nodes
+    private final boolean[] active;
+    private int head;
+    private int count;
+
+    /**
+     * @param nodeCount number of nodes in the instance; all bits start set (nothing queued)
+     */
+    public DontLookBits(int nodeCount) {
+        this.queue = new int[nodeCount];
+        this.active = new boolean[nodeCount];
+    }
+
+    /**
+     * Resets the bit of a node, queueing it unless it is already queued
+     */
+    public void activate(int node) {
+        if (active[node]) return;
+        active[node] = true;
+        int tail = head + count;
+        queue[tail >= queue.length ? tail - queue.length : tail] = node;
+        count++;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Removes the oldest queued node and sets its bit
+     */
+    public int poll() {
+        int node = queue[head];
+        head = head + 1 == queue.length ? 0 : head + 1;
+        count--;
+        active[node] = false;
+        return node;
+    }
+}
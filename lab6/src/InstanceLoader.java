@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads instances from the semicolon CSV files in data/, from TSPLIB .tsp files and from a
+ * compact binary format, straight into an Instance without creating a Node or String per line.
+ *
+ * CSV: one "x;y;cost" line per node; lines with fewer than three fields are skipped.
+ * TSPLIB: an EUC_2D NODE_COORD_SECTION ("id x y" lines, real coordinates are rounded), plus an
+ * optional NODE_COST_SECTION of "id cost" lines; node costs default to 0 without it.
+ * Binary (.bin): a 16-byte header (magic, version, n, reserved) followed by the x, y and cost
+ * arrays as little-endian ints.
+ */
+public class InstanceLoader {
+
+    private static final int MAGIC = 0x54535049; // "TSPI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private InstanceLoader() {
+    }
+
+    /**
+     * Reads an instance, choosing the format from the file extension (.tsp, .bin, otherwise CSV)
+     */
+    public static Instance load(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".tsp")) {
+            return readTsplib(file);
+        }
+        if (name.endsWith(".bin")) {
+            return readBinary(file);
+        }
+        return readCsv(file);
+    }
+
+    public static Instance readCsv(Path file) throws IOException {
+        Parser parser = new Parser(Files.readAllBytes(file), file);
+        int capacity = parser.countLines();
+        int[] x = new int[capacity];
+        int[] y = new int[capacity];
+        int[] costs = new int[capacity];
+        int[] fields = new int[3];
+
+        int n = 0;
+        while (!parser.atEnd()) {
+            int count = 0;
+            parser.skipBlanks();
+            while (count < fields.length && !parser.atLineEnd()) {
+                fields[count++] = parser.nextInt();
+                parser.skipBlanks();
+                if (parser.peek() == ';') {
+                    parser.advance();
+                    parser.skipBlanks();
+                } else if (!parser.atLineEnd()) {
+                    throw parser.error("expected ';'");
+                }
+            }
+            if (count == fields.length) {
+                x[n] = fields[0];
+                y[n] = fields[1];
+                costs[n] = fields[2];
+                n++;
+            }
+            parser.skipLine();
+        }
+        return n == capacity ? new Instance(x, y, costs) : new Instance(Arrays.copyOf(x, n), Arrays.copyOf(y, n), Arrays.copyOf(costs, n));
+    }
+
+    public static Instance readTsplib(Path file) throws IOException {
+        Parser parser = new Parser(Files.readAllBytes(file), file);
+        int n = -1;
+        int[] x = null;
+        int[] y = null;
+        int[] costs = null;
+
+        while (!parser.atEnd()) {
+            String line = parser.nextLine().trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String keyword = (colon >= 0 ? line.substring(0, colon) : line).trim();
+            String value = colon >= 0 ? line.substring(colon + 1).trim() : "";
+
+            switch (keyword) {
+                case "DIMENSION" -> {
+                    n = Integer.parseInt(value);
+                    x = new int[n];
+                    y = new int[n];
+                    costs = new int[n];
+                }
+                case "EDGE_WEIGHT_TYPE" -> {
+                    if (!value.equals("EUC_2D")) {
+                        throw new IOException(STR."\{file}: unsupported EDGE_WEIGHT_TYPE \{value}");
+                    }
+                }
+                case "NODE_COORD_SECTION" -> {
+                    requireDimension(n, file, keyword);
+                    for (int k = 0; k < n; k++) {
+                        int id = parser.nextId(n);
+                        x[id] = parser.nextRounded();
+                        y[id] = parser.nextRounded();
+                        parser.skipLine();
+                    }
+                }
+                case "NODE_COST_SECTION" -> {
+                    requireDimension(n, file, keyword);
+                    for (int k = 0; k < n; k++) {
+                        int id = parser.nextId(n);
+                        costs[id] = parser.nextInt();
+                        parser.skipLine();
+                    }
+                }
+                case "EOF" -> {
+                    requireDimension(n, file, "EOF");
+                    return new Instance(x, y, costs);
+                }
+                default -> {
+                    // NAME, TYPE, COMMENT and other keywords do not affect the instance
+                }
+            }
+        }
+        requireDimension(n, file, "end of file");
+        return new Instance(x, y, costs);
+    }
+
+    public static Instance readBinary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(STR."invalid binary instance file: \{file}");
+            }
+            int n = buffer.getInt(8);
+            if (n < 0 || buffer.capacity() != HEADER_BYTES + 3L * n * Integer.BYTES) {
+                throw new IOException(STR."invalid binary instance file: \{file}");
+            }
+            int[] x = new int[n];
+            int[] y = new int[n];
+            int[] costs = new int[n];
+            buffer.position(HEADER_BYTES).asIntBuffer().get(x).get(y).get(costs);
+            return new Instance(x, y, costs);
+        }
+    }
+
+    public static void writeBinary(Instance instance, Path file) throws IOException {
+        int n = instance.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 3 * n * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0);
+        buffer.asIntBuffer().put(instance.getXs()).put(instance.getYs()).put(instance.getCosts());
+        buffer.clear();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static void requireDimension(int n, Path file, String where) throws IOException {
+        if (n < 0) {
+            throw new IOException(STR."\{file}: DIMENSION missing before \{where}");
+        }
+    }
+
+    /**
+     * Cursor over the bytes of a text file
+     */
+    private static final class Parser {
+        private final byte[] data;
+        private final Path file;
+        private int pos;
+
+        Parser(byte[] data, Path file) {
+            this.data = data;
+            this.file = file;
+        }
+
+        boolean atEnd() {
+            return pos >= data.length;
+        }
+
+        boolean atLineEnd() {
+            return pos >= data.length || data[pos] == '\n' || data[pos] == '\r';
+        }
+
+        int peek() {
+            return pos < data.length ? data[pos] : -1;
+        }
+
+        void advance() {
+            pos++;
+        }
+
+        void skipBlanks() {
+            while (pos < data.length && (data[pos] == ' ' || data[pos] == '\t')) {
+                pos++;
+            }
+        }
+
+        /**
+         * Upper bound on the number of lines, used to size the arrays once
+         */
+        int countLines() {
+            int lines = 1;
+            for (byte b : data) {
+                if (b == '\n') lines++;
+            }
+            return lines;
+        }
+
+        /**
+         * Skips the rest of the current line and its terminator, like nextLine but without
+         * building the String
+         */
+        void skipLine() {
+            while (!atLineEnd()) {
+                pos++;
+            }
+            if (pos < data.length && data[pos] == '\r') pos++;
+            if (pos < data.length && data[pos] == '\n') pos++;
+        }
+
+        /**
+         * Skips the rest of the current line and returns it (without the line terminator)
+         */
+        String nextLine() {
+            int start = pos;
+            while (!atLineEnd()) {
+                pos++;
+            }
+            String line = new String(data, start, pos - start, StandardCharsets.US_ASCII);
+            if (pos < data.length && data[pos] == '\r') pos++;
+            if (pos < data.length && data[pos] == '\n') pos++;
+            return line;
+        }
+
+        int nextInt() throws IOException {
+            skipWhitespace();
+            boolean negative = false;
+            if (peek() == '-' || peek() == '+') {
+                negative = data[pos++] == '-';
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < data.length && data[pos] >= '0' && data[pos] <= '9') {
+                value = value * 10 + (data[pos++] - '0');
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw error("number out of range");
+                }
+            }
+            if (pos == start) {
+                throw error("expected a number");
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw error("number out of range");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads a number that may have a fractional part, rounded half away from zero
+         */
+        int nextRounded() throws IOException {
+            boolean negative = peekSign();
+            int value = Math.abs(nextInt());
+            if (peek() == '.') {
+                pos++;
+                if (pos < data.length && data[pos] >= '5' && data[pos] <= '9') {
+                    value++;
+                }
+                while (pos < data.length && data[pos] >= '0' && data[pos] <= '9') {
+                    pos++;
+                }
+            }
+            if (peek() == 'e' || peek() == 'E') {
+                throw error("exponent notation is not supported");
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Reads a 1-based node id and returns it as a 0-based index
+         */
+        int nextId(int n) throws IOException {
+            int id = nextInt();
+            if (id < 1 || id > n) {
+                throw error(STR."node id \{id} outside 1..\{n}");
+            }
+            return id - 1;
+        }
+
+        private boolean peekSign() {
+            skipWhitespace();
+            return peek() == '-';
+        }
+
+        private void skipWhitespace() {
+            while (pos < data.length && (data[pos] == ' ' || data[pos] == '\t' || data[pos] == '\r' || data[pos] == '\n')) {
+                pos++;
+            }
+        }
+
+        IOException error(String message) {
+            int line = 1;
+            for (int i = 0; i < pos && i < data.length; i++) {
+                if (data[i] == '\n') line++;
+            }
+            return new IOException(STR."\{file}:\{line}: \{message}");
+        }
+    }
+}
@@ -0,0 +1,336 @@
+import java.util.*;
+
+/**
+ * Lin-Kernighan style variable-depth search for the selective problem.
+ *
+ * A chain starts at a base node t1 and one of its route edges (t1, t2), which is taken out;
+ * t2 is the free end and the gain G is the length removed minus the length added so far.
+ * Every step keeps t2 next to t1 in the tour, so the tour closed by the edge (t1, t2) is always
+ * a valid solution with cost (start cost - G + d(t1, t2)). A step is either
+ *  - 2-opt: add (t2, t3) for a candidate t3 of t2 and remove (t3, t4), t4 the neighbour of t3
+ *    that makes it a 2-opt move; t4 becomes the free end
+ *  - exchange: replace t2 by an unselected candidate u of its other neighbour s, removing
+ *    (t2, s) and adding (u, s); u becomes the free end
+ * and is only taken while G stays positive (or if closing right after it improves). An edge
+ * added in the chain is never removed and a removed one is never added back. The best
+ * BREADTH[level] steps (largest G after the step) are tried at the first levels, deeper only
+ * the best one, up to MAX_DEPTH steps; a step that improves when closed right away is always
+ * tried. The chain is cut back to the step where closing it gained most; if that gains
+ * nothing, the steps are undone.
+ *
+ * Base nodes come from DontLookBits: a node is searched again only after an edge at it
+ * changed. The tour is a TwoLevelTour, so a step costs O(sqrt(n)) for the flip.
+ * A chain of one step is a plain candidate 2-opt or exchange move, so the neighbourhood
+ * contains that of CandidateMoveListSearch.
+ */
+public class LinKernighanSearch extends TSPSolver implements Improver {
+
+    private static final int DEFAULT_CANDIDATES = 10;
+    private static final int MAX_DEPTH = 15;
+    private static final int[] BREADTH = {3};     // steps tried at level 0; 1 deeper
+    private static final int TWO_OPT = 0;
+    private static final int EXCHANGE = 1;
+
+    private final int[][] candidates;   // candidates[a] = nearest nodes of a by arc cost
+
+    // steps considered at each level, by position: type, the two nodes and the gain after it
+    private final int[][] stepType;
+    private final int[][] stepFirst;    // TWO_OPT: t3, EXCHANGE: s
+    private final int[][] stepSecond;   // TWO_OPT: t4, EXCHANGE: u
+    private final int[][] stepGain;
+    private final int[] stepCount;
+
+    // the chain being built: step k changed the tour around chainNodes[4k..4k+3]
+    private final int[] chainType;
+    private final int[] chainNodes;
+    private final int[] addedEdges;     // endpoints of the edges added, two per edge
+    private final int[] removedEdges;   // endpoints of the edges removed, two per edge
+    private int addedCount;
+    private int removedCount;
+    private int depth;
+    private int bestGain;               // best gain of closing the chain, 0 if none improves
+    private int bestDepth;              // steps in the chain when that gain was reached
+
+    public LinKernighanSearch(InstanceBundle bundle) {
+        this(bundle, DEFAULT_CANDIDATES);
+    }
+
+    /**
+     * @param candidateCount candidates per node, at most InstanceBundle.NEIGHBORS
+     */
+    public LinKernighanSearch(InstanceBundle bundle, int candidateCount) {
+        super(bundle);
+        int n = instance.size();
+        this.candidates = new int[n][];
+        for (int a = 0; a < n; a++) {
+            int[] nearest = bundle.getNeighbors(a);
+            candidates[a] = Arrays.copyOf(nearest, Math.min(candidateCount, nearest.length));
+        }
+        int perLevel = 3 * candidateCount;
+        this.stepType = new int[MAX_DEPTH][perLevel];
+        this.stepFirst = new int[MAX_DEPTH][perLevel];
+        this.stepSecond = new int[MAX_DEPTH][perLevel];
+        this.stepGain = new int[MAX_DEPTH][perLevel];
+        this.stepCount = new int[MAX_DEPTH];
+        this.chainType = new int[MAX_DEPTH];
+        this.chainNodes = new int[4 * MAX_DEPTH];
+        this.addedEdges = new int[2 * MAX_DEPTH];
+        this.removedEdges = new int[2 * (MAX_DEPTH + 1)];
+    }
+
+    @Override
+    public Result solve(List<Integer> initialRoute) {
+        Tour route = new TwoLevelTour(initialRoute, instance.size());
+        int currentCost = computeTotalCost(route);
+        int iteration = 0;
+
+        DontLookBits dontLookBits = new DontLookBits(instance.size());
+        for (int a = route.first(), k = 0; k < route.size(); a = route.next(a), k++) {
+            dontLookBits.activate(a);
+        }
+
+        while (!dontLookBits.isEmpty()) {
+            int t1 = dontLookBits.poll();
+            if (!route.contains(t1) || !improveFrom(route, t1)) continue;
+
+            currentCost -= bestGain;
+            dontLookBits.activate(t1);
+            for (int k = 0; k < 4 * bestDepth; k++) {
+                int node = chainNodes[k];
+                if (route.contains(node)) dontLookBits.activate(node);
+            }
+
+            iteration++;
+            if (VERIFY_COST && iteration % VERIFY_INTERVAL == 0) {
+                verifyCost(route, currentCost);
+            }
+        }
+        if (VERIFY_COST) {
+            verifyCost(route, currentCost);
+        }
+
+        return new Result(route.toClosedList(), currentCost);
+    }
+
+    /**
+     * Builds chains from base node t1 on either of its route edges. Returns whether one
+     * improved, in which case the tour holds it, cut back to its best step (bestDepth steps,
+     * gaining bestGain); otherwise the tour is unchanged.
+     */
+    private boolean improveFrom(Tour route, int t1) {
+        if (route.size() < 4) return false;
+        for (int side = 0; side < 2; side++) {
+            int t2 = side == 0 ? route.next(t1) : route.prev(t1);
+            depth = 0;
+            addedCount = 0;
+            removedCount = 0;
+            bestGain = 0;
+            bestDepth = 0;
+            pushRemoved(t1, t2);
+
+            extend(route, t1, t2, distance(t1, t2), 0);
+            if (bestGain > 0) {
+                while (depth > bestDepth) undoStep(route, t1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries the best steps from free end t2 at this level, and any further ones that improve
+     * when closed right away, going deeper after each. Stops, leaving the chain in the tour, as
+     * soon as a chain closing with a positive gain was seen.
+     */
+    private void extend(Tour route, int t1, int t2, int gain, int level) {
+        collectSteps(route, t1, t2, gain, level);
+        int breadth = level < BREADTH.length ? BREADTH[level] : 1;
+        for (int tried = 0; ; tried++) {
+            int k = takeBest(level);
+            if (k < 0) return;
+
+            int first = stepFirst[level][k];
+            int second = stepSecond[level][k];
+            int newGain = stepGain[level][k];
+            // second becomes the new free end, next to t1
+            int closed = newGain - distance(t1, second);
+            // past the breadth only steps that already improve, so no improving move is missed
+            if (tried >= breadth && closed <= 0) continue;
+            if (stepType[level][k] == TWO_OPT) {
+                applyTwoOpt(route, t1, t2, first, second);
+            } else {
+                applyExchange(route, t1, t2, first, second);
+            }
+            if (closed > bestGain) {
+                bestGain = closed;
+                bestDepth = depth;
+            }
+            if (depth < MAX_DEPTH) {
+                extend(route, t1, second, newGain, level + 1);
+            }
+            if (bestGain > 0) return;
+            undoStep(route, t1);
+        }
+    }
+
+    /**
+     * Stores the steps from free end t2 that keep the gain positive and respect the added /
+     * removed edges of the chain
+     */
+    private void collectSteps(Tour route, int t1, int t2, int gain, int level) {
+        int count = 0;
+        boolean forward = route.next(t1) == t2;
+
+        for (int t3 : candidates[t2]) {
+            if (t3 == t1 || t3 == t2 || !route.contains(t3)) continue;
+            int t4 = forward ? route.prev(t3) : route.next(t3);
+            if (t4 == t2) continue;
+            int g1 = gain - distance(t2, t3);
+            int g2 = g1 + distance(t3, t4);
+            // a step that loses gain is still taken if it closes to an improvement
+            if (g1 <= 0 && g2 - distance(t1, t4) <= 0) continue;
+            if (isRemoved(t2, t3) || isAdded(t3, t4)) continue;
+            count = addStep(level, count, TWO_OPT, t3, t4, g2);
+        }
+
+        int s = forward ? route.next(t2) : route.prev(t2);
+        if (s != t1 && !isAdded(t2, s)) {
+            int leaving = gain + distance(t2, s) + instance.getCost(t2);
+            // u comes between t1 and s, so it is looked for among the candidates of both
+            for (int side = 0; side < 2; side++) {
+                for (int u : candidates[side == 0 ? s : t1]) {
+                    if (route.contains(u) || isRemoved(u, s) || wasRemoved(u)) continue;
+                    if (side == 1 && isCandidate(s, u)) continue;
+                    int g1 = leaving - distance(u, s) - instance.getCost(u);
+                    if (g1 <= 0) continue;
+                    count = addStep(level, count, EXCHANGE, s, u, g1);
+                }
+            }
+        }
+        stepCount[level] = count;
+    }
+
+    private boolean isCandidate(int a, int c) {
+        for (int x : candidates[a]) {
+            if (x == c) return true;
+        }
+        return false;
+    }
+
+    private int addStep(int level, int count, int type, int first, int second, int gain) {
+        stepType[level][count] = type;
+        stepFirst[level][count] = first;
+        stepSecond[level][count] = second;
+        stepGain[level][count] = gain;
+        return count + 1;
+    }
+
+    /**
+     * Removes the step with the largest gain left at this level and returns its position,
+     * or -1 if none is left
+     */
+    private int takeBest(int level) {
+        int count = stepCount[level];
+        if (count == 0) return -1;
+        int best = 0;
+        for (int k = 1; k < count; k++) {
+            if (stepGain[level][k] > stepGain[level][best]) best = k;
+        }
+        int last = count - 1;
+        if (best != last) {
+            swap(stepType[level], best, last);
+            swap(stepFirst[level], best, last);
+            swap(stepSecond[level], best, last);
+            swap(stepGain[level], best, last);
+        }
+        stepCount[level] = last;
+        return last;
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int t = values[i];
+        values[i] = values[j];
+        values[j] = t;
+    }
+
+    /** (t1, t2) and (t4, t3) become (t1, t4) and (t2, t3) */
+    private void applyTwoOpt(Tour route, int t1, int t2, int t3, int t4) {
+        flipEdges(route, t1, t2, t4, t3);
+        pushStep(TWO_OPT, t2, t3, t4, t1);
+        pushAdded(t2, t3);
+        pushRemoved(t3, t4);
+    }
+
+    /** t2 leaves the tour and u takes its place between t1 and s */
+    private void applyExchange(Tour route, int t1, int t2, int s, int u) {
+        route.replace(t2, u);
+        pushStep(EXCHANGE, t2, s, u, t1);
+        pushAdded(u, s);
+        pushRemoved(t2, s);
+    }
+
+    /** Undoes the last step of the chain */
+    private void undoStep(Tour route, int t1) {
+        depth--;
+        addedCount -= 2;
+        removedCount -= 2;
+        int base = 4 * depth;
+        if (chainType[depth] == TWO_OPT) {
+            int t2 = chainNodes[base], t3 = chainNodes[base + 1], t4 = chainNodes[base + 2];
+            flipEdges(route, t1, t4, t2, t3);
+        } else {
+            route.replace(chainNodes[base + 2], chainNodes[base]);
+        }
+    }
+
+    private void pushStep(int type, int a, int b, int c, int d) {
+        chainType[depth] = type;
+        int base = 4 * depth++;
+        chainNodes[base] = a;
+        chainNodes[base + 1] = b;
+        chainNodes[base + 2] = c;
+        chainNodes[base + 3] = d;
+    }
+
+    private void pushAdded(int a, int b) {
+        addedEdges[addedCount++] = a;
+        addedEdges[addedCount++] = b;
+    }
+
+    private void pushRemoved(int a, int b) {
+        removedEdges[removedCount++] = a;
+        removedEdges[removedCount++] = b;
+    }
+
+    private boolean isAdded(int a, int b) {
+        return contains(addedEdges, addedCount, a, b);
+    }
+
+    private boolean isRemoved(int a, int b) {
+        return contains(removedEdges, removedCount, a, b);
+    }
+
+    /** Whether node left the tour in an exchange step of the chain */
+    private boolean wasRemoved(int node) {
+        for (int k = 0; k < depth; k++) {
+            if (chainType[k] == EXCHANGE && chainNodes[4 * k] == node) return true;
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] edges, int count, int a, int b) {
+        for (int k = 0; k < count; k += 2) {
+            if ((edges[k] == a && edges[k + 1] == b) || (edges[k] == b && edges[k + 1] == a)) return true;
+        }
+        return false;
+    }
+
+    /** 2-opt replacing the edges (x, y) and (u, v) by (x, u) and (y, v), whichever way they point */
+    private static void flipEdges(Tour route, int x, int y, int u, int v) {
+        if (route.next(x) == y) {
+            route.flip(x, y, u, v);
+        } else {
+            route.flip(y, x, v, u);
+        }
+    }
+}
@@ -1,229 +1,566 @@
-import java.util.*;
-
-/**
- * Local Search for TSP.
- *
- * Three binary options:
- *  (1) useSteepest       — true = steepest descent, false = greedy descent
- *  (2) useNodeExchange    — true = node-swap intra-route, false = edge-swap (2-opt)
- *  (3) initialization type handled externally (random or heuristic)
- *
- * Neighborhood = intra-route + inter-route moves.
- *   - Intra-route:  node-swap OR edge-swap (2-opt)
- *   - Inter-route:  exchange of one selected and one unselected node
- */
-public class LocalSearch extends TSPSolver {
-
-    private final boolean useSteepest;
-    private final boolean useNodeExchange;
-    private final Random random;
-
-    public LocalSearch(double[][] distanceMatrix, List<Node> nodes,
-                       boolean useSteepest, boolean useNodeExchange) {
-        super(distanceMatrix, nodes);
-        this.useSteepest = useSteepest;
-        this.useNodeExchange = useNodeExchange;
-        this.random = new Random();
-    }
-
-    public Result solve(List<Integer> initialRoute) {
-        // Copy without closing node if already closed
-        List<Integer> route = new ArrayList<>(initialRoute);
-        if (route.size() > 1 && route.get(0).equals(route.get(route.size() - 1))) {
-            route.remove(route.size() - 1);
-        }
-
-        double currentCost = computeTotalCost(closed(route));
-        boolean improved;
-        int iteration = 0;
-
-        do {
-            improved = false;
-            Move bestMove = null;
-            double bestDelta = 0.0;
-
-            // Compose full neighborhood (intra + inter)
-            List<Move> neighborhood = generateNeighborhood(route);
-
-            // For greedy: randomize full order of all moves
-            if (!useSteepest) Collections.shuffle(neighborhood, random);
-
-            for (Move move : neighborhood) {
-                double delta = computeDelta(route, move);
-                if (delta < -1e-9) { // improvement
-                    if (useSteepest) {
-                        if (bestMove == null || delta < bestDelta) {
-                            bestMove = move;
-                            bestDelta = delta;
-                        }
-                    } else { // Greedy: first improving move
-                        applyMove(route, move);
-                        currentCost += delta;
-                        improved = true;
-                        break; // exit loop immediately
-                    }
-                }
-            }
-
-            if (useSteepest && bestMove != null) {
-                applyMove(route, bestMove);
-                currentCost += bestDelta;
-                improved = true;
-            }
-
-            iteration++;
-
-        } while (improved);
-
-        route.add(route.get(0)); // close route
-        double finalCost = computeTotalCost(route);
-        return new Result(route, finalCost);
-    }
-
-    /** Generate combined intra- and inter-route neighborhood */
-    private List<Move> generateNeighborhood(List<Integer> route) {
-        List<Move> moves = new ArrayList<>();
-        int n = route.size();
-
-        // Intra-route moves
-        if (useNodeExchange) {
-            for (int i = 0; i < n - 1; i++) {
-                for (int j = i + 1; j < n; j++) {
-                    moves.add(new Move(MoveType.SWAP_NODES, i, j));
-                }
-            }
-        } else { // 2-opt
-            for (int i = 0; i < n - 2; i++) {
-                for (int j = i + 2; j < n; j++) {
-                    if (i == 0 && j == n - 1) continue;
-                    moves.add(new Move(MoveType.TWO_OPT, i, j));
-                }
-            }
-        }
-
-        // Inter-route: swap one selected and one unselected
-        Set<Integer> selected = new HashSet<>(route);
-        for (int i = 0; i < n; i++) {
-            for (int node = 0; node < nodes.size(); node++) {
-                if (!selected.contains(node)) {
-                    moves.add(new Move(MoveType.EXCHANGE_SELECTED_UNSELECTED, i, node));
-                }
-            }
-        }
-
-        return moves;
-    }
-
-    /** Compute delta change for given move */
-    private double computeDelta(List<Integer> route, Move move) {
-        switch (move.type) {
-            case SWAP_NODES:
-                return deltaSwap(route, move.i, move.j);
-            case TWO_OPT:
-                return deltaTwoOpt(route, move.i, move.j);
-            case EXCHANGE_SELECTED_UNSELECTED:
-                return deltaInter(route, move.i, move.j);
-            default:
-                return 0.0;
-        }
-    }
-
-    /** Delta for swapping two nodes */
-    private double deltaSwap(List<Integer> route, int i, int j) {
-        int n = route.size();
-        if (i == j) return 0;
-
-        int ni = route.get(i);
-        int nj = route.get(j);
-        int iPrev = route.get((i - 1 + n) % n);
-        int iNext = route.get((i + 1) % n);
-        int jPrev = route.get((j - 1 + n) % n);
-        int jNext = route.get((j + 1) % n);
-
-        double before = 0, after = 0;
-
-        if (iPrev != nj && jPrev != ni) {
-            before += distanceMatrix[iPrev][ni] + distanceMatrix[ni][iNext];
-            before += distanceMatrix[jPrev][nj] + distanceMatrix[nj][jNext];
-
-            after += distanceMatrix[iPrev][nj] + distanceMatrix[nj][iNext];
-            after += distanceMatrix[jPrev][ni] + distanceMatrix[ni][jNext];
-        }
-
-        return after - before;
-    }
-
-    /** Delta for 2-opt edge reversal */
-    private double deltaTwoOpt(List<Integer> route, int i, int j) {
-        int a = route.get(i);
-        int b = route.get(i + 1);
-        int c = route.get(j);
-        int d = route.get((j + 1) % route.size());
-
-        double before = distanceMatrix[a][b] + distanceMatrix[c][d];
-        double after = distanceMatrix[a][c] + distanceMatrix[b][d];
-        return after - before;
-    }
-
-    /** Delta for inter-route (selected ↔ unselected) swap */
-    private double deltaInter(List<Integer> route, int selectedIndex, int unselectedNode) {
-        int selectedNode = route.get(selectedIndex);
-        int prev = route.get((selectedIndex - 1 + route.size()) % route.size());
-        int next = route.get((selectedIndex + 1) % route.size());
-
-        double before = distanceMatrix[prev][selectedNode] + distanceMatrix[selectedNode][next];
-        double after = distanceMatrix[prev][unselectedNode] + distanceMatrix[unselectedNode][next];
-
-        Node selected = nodes.get(selectedNode);
-        Node unselected = nodes.get(unselectedNode);
-        before += selected.getCost();
-        after += unselected.getCost();
-
-        return after - before;
-    }
-
-    /** Apply the move */
-    private void applyMove(List<Integer> route, Move move) {
-        switch (move.type) {
-            case SWAP_NODES:
-                Collections.swap(route, move.i, move.j);
-                break;
-            case TWO_OPT:
-                reverseSublist(route, move.i + 1, move.j);
-                break;
-            case EXCHANGE_SELECTED_UNSELECTED:
-                route.set(move.i, move.j);
-                break;
-        }
-    }
-
-    /** Reverse a sublist (for 2-opt) */
-    private void reverseSublist(List<Integer> route, int start, int end) {
-        while (start < end) {
-            Collections.swap(route, start++, end--);
-        }
-    }
-
-    /** Close the route */
-    private List<Integer> closed(List<Integer> route) {
-        List<Integer> r = new ArrayList<>(route);
-        r.add(route.get(0));
-        return r;
-    }
-
-    private enum MoveType {
-        SWAP_NODES,
-        TWO_OPT,
-        EXCHANGE_SELECTED_UNSELECTED
-    }
-
-    private static class Move {
-        MoveType type;
-        int i, j;
-        Move(MoveType type, int i, int j) {
-            this.type = type;
-            this.i = i;
-            this.j = j;
-        }
-    }
-}
+import java.util.*;
+
+/**
+ * Local Search for TSP.
+ *
+ * Three binary options:
+ *  (1) useSteepest       — true = steepest descent, false = greedy descent
+ *  (2) useNodeExchange    — true = node-swap intra-route, false = edge-swap (2-opt)
+ *  (3) initialization type handled externally (random or heuristic)
+ * and optionally don't-look bits, which only search around nodes whose edges changed.
+ *
+ * Neighborhood = intra-route + inter-route moves.
+ *   - Intra-route:  node-swap OR edge-swap (2-opt), optionally plus Or-opt: relocating a
+ *                   segment of 1 to 3 nodes, possibly reversed, next to a candidate (one of
+ *                   the OR_OPT_CANDIDATES nearest nodes) of one of its end nodes
+ *   - Inter-route:  exchange of one selected and one unselected node
+ */
+public class LocalSearch extends TSPSolver implements Improver {
+
+    private final boolean useSteepest;
+    private final boolean useNodeExchange;
+    private final boolean useDontLookBits;
+    private final boolean useOrOpt;
+    private final Random random;
+
+    private static final int MAX_SEGMENT = 3;         // longest segment an Or-opt move relocates
+    private static final int OR_OPT_CANDIDATES = 10;  // candidates per node for Or-opt
+    private final int[][] candidates;                 // candidates[node], null without Or-opt
+
+    // best move of the last findBestMove scan
+    private MoveType bestType;
+    private int bestI, bestJ, bestDelta;
+    private int bestSegment; // OR_OPT only: segment length, negative if the segment is reversed
+
+    public LocalSearch(InstanceBundle bundle,
+                       boolean useSteepest, boolean useNodeExchange) {
+        this(bundle, useSteepest, useNodeExchange, false);
+    }
+
+    /**
+     * @param useDontLookBits search only around queued nodes (see DontLookBits): steepest takes
+     *                        the best move around the node, greedy the first improving one
+     */
+    public LocalSearch(InstanceBundle bundle,
+                       boolean useSteepest, boolean useNodeExchange, boolean useDontLookBits) {
+        this(bundle, useSteepest, useNodeExchange, useDontLookBits, false);
+    }
+
+    /**
+     * @param useOrOpt add Or-opt segment relocations to the intra-route moves
+     */
+    public LocalSearch(InstanceBundle bundle,
+                       boolean useSteepest, boolean useNodeExchange, boolean useDontLookBits,
+                       boolean useOrOpt) {
+        super(bundle);
+        this.useSteepest = useSteepest;
+        this.useNodeExchange = useNodeExchange;
+        this.useDontLookBits = useDontLookBits;
+        this.useOrOpt = useOrOpt;
+        this.random = new Random();
+
+        if (useOrOpt) {
+            this.candidates = new int[instance.size()][];
+            for (int node = 0; node < instance.size(); node++) {
+                int[] nearest = bundle.getNeighbors(node);
+                candidates[node] = Arrays.copyOf(nearest, Math.min(OR_OPT_CANDIDATES, nearest.length));
+            }
+        } else {
+            this.candidates = null;
+        }
+    }
+
+    @Override
+    public Result solve(List<Integer> initialRoute) {
+        // Route drops the closing node if the initial route is closed
+        Route route = new Route(initialRoute, instance.size());
+        Selection selection = new Selection(initialRoute, instance.size());
+
+        int currentCost = computeTotalCost(route);
+        boolean improved;
+        int iteration = 0;
+
+        DontLookBits dontLookBits = null;
+        if (useDontLookBits) {
+            dontLookBits = new DontLookBits(instance.size());
+            for (int i = 0; i < route.size(); i++) dontLookBits.activate(route.get(i));
+        }
+
+        do {
+            improved = false;
+
+            if (useDontLookBits) {
+                // Poll queued nodes until one has an improving move around it
+                while (!dontLookBits.isEmpty()) {
+                    int node = dontLookBits.poll();
+                    if (route.contains(node) && findMoveAround(route, selection, node)) {
+                        activateTouched(route, dontLookBits, bestType, bestI, bestJ, bestSegment);
+                        applyMove(route, selection, bestType, bestI, bestJ, bestSegment);
+                        currentCost += bestDelta;
+                        improved = true;
+                        break;
+                    }
+                }
+            } else if (useSteepest) {
+                // Evaluate the full neighborhood in place, only the best move is kept
+                if (findBestMove(route, selection)) {
+                    applyMove(route, selection, bestType, bestI, bestJ, bestSegment);
+                    currentCost += bestDelta;
+                    improved = true;
+                }
+            } else {
+                // Greedy: first improving move in a random order of the neighborhood
+                if (findFirstImprovingMove(route, selection)) {
+                    applyMove(route, selection, bestType, bestI, bestJ, bestSegment);
+                    currentCost += bestDelta;
+                    improved = true;
+                }
+            }
+
+            iteration++;
+            if (VERIFY_COST && (iteration % VERIFY_INTERVAL == 0 || !improved)) {
+                verifyCost(route, currentCost);
+            }
+
+        } while (improved);
+
+        // currentCost was kept up to date by the move deltas
+        return new Result(route.toClosedList(), currentCost);
+    }
+
+    /**
+     * Steepest scan: evaluates the whole neighborhood in place (intra-route pairs, then every
+     * position with every unselected node) and leaves the first move with the lowest delta in
+     * bestType, bestI, bestJ and bestDelta. Returns false if no move improves.
+     */
+    private boolean findBestMove(Route route, Selection selection) {
+        int n = route.size();
+        bestType = null;
+        bestDelta = 0;
+
+        // Intra-route moves
+        if (useNodeExchange) {
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int delta = deltaSwap(route, i, j);
+                    if (delta < bestDelta) recordBest(MoveType.SWAP_NODES, i, j, delta);
+                }
+            }
+        } else { // 2-opt
+            for (int i = 0; i < n - 2; i++) {
+                int a = route.get(i);
+                int b = route.get(i + 1);
+                int removedAB = distance(a, b);
+                for (int j = i + 2; j < n; j++) {
+                    if (i == 0 && j == n - 1) continue;
+                    int c = route.get(j);
+                    int d = route.getNext(j);
+                    int delta = distance(a, c) + distance(b, d) - removedAB - distance(c, d);
+                    if (delta < bestDelta) recordBest(MoveType.TWO_OPT, i, j, delta);
+                }
+            }
+        }
+
+        if (useOrOpt) {
+            for (int i = 0; i < n; i++) {
+                for (int length = 1; length <= maxSegment(n); length++) {
+                    scanOrOpt(route, i, length);
+                }
+            }
+        }
+
+        // Inter-route: swap one selected and one unselected
+        for (int i = 0; i < n; i++) {
+            int prev = route.getPrev(i);
+            int next = route.getNext(i);
+            int selectedNode = route.get(i);
+            int removed = arcCost(prev, selectedNode) + distance(selectedNode, next);
+            for (int node = selection.nextUnselected(0); node >= 0; node = selection.nextUnselected(node + 1)) {
+                int delta = arcCost(prev, node) + distance(node, next) - removed;
+                if (delta < bestDelta) recordBest(MoveType.EXCHANGE_SELECTED_UNSELECTED, i, node, delta);
+            }
+        }
+
+        return bestType != null;
+    }
+
+    /**
+     * Don't-look-bit scan: evaluates only the moves that remove a route edge of the given
+     * node (2-opt or swaps involving it, Or-opt of segments ending at it, exchanges at it or
+     * its route neighbors) and leaves
+     * the best one (steepest) or the first improving one (greedy) in bestType, bestI, bestJ
+     * and bestDelta. Returns false if none of them improves.
+     */
+    private boolean findMoveAround(Route route, Selection selection, int node) {
+        int n = route.size();
+        int p = route.indexOf(node);
+        bestType = null;
+        bestDelta = 0;
+
+        // Intra-route moves
+        if (useNodeExchange) {
+            for (int q = 0; q < n; q++) {
+                if (q == p) continue;
+                int i = Math.min(p, q), j = Math.max(p, q);
+                int delta = deltaSwap(route, i, j);
+                if (delta < bestDelta) {
+                    recordBest(MoveType.SWAP_NODES, i, j, delta);
+                    if (!useSteepest) return true;
+                }
+            }
+        } else { // 2-opt removing the edge after or before the node
+            for (int side = 0; side < 2; side++) {
+                int e = side == 0 ? p : (p - 1 + n) % n;
+                for (int q = 0; q < n; q++) {
+                    int i = Math.min(e, q), j = Math.max(e, q);
+                    if (j < i + 2 || (i == 0 && j == n - 1)) continue;
+                    int delta = deltaTwoOpt(route, i, j);
+                    if (delta < bestDelta) {
+                        recordBest(MoveType.TWO_OPT, i, j, delta);
+                        if (!useSteepest) return true;
+                    }
+                }
+            }
+        }
+
+        // Or-opt of the segments starting or ending at the node
+        if (useOrOpt) {
+            for (int length = 1; length <= maxSegment(n); length++) {
+                if (scanOrOpt(route, p, length) && !useSteepest) return true;
+                if (length > 1 && scanOrOpt(route, (p - length + 1 + n) % n, length) && !useSteepest) return true;
+            }
+        }
+
+        // Inter-route: exchanges at the node and at its route neighbors
+        for (int offset = -1; offset <= 1; offset++) {
+            int i = (p + offset + n) % n;
+            for (int other = selection.nextUnselected(0); other >= 0; other = selection.nextUnselected(other + 1)) {
+                int delta = deltaInter(route, i, other);
+                if (delta < bestDelta) {
+                    recordBest(MoveType.EXCHANGE_SELECTED_UNSELECTED, i, other, delta);
+                    if (!useSteepest) return true;
+                }
+            }
+        }
+
+        return bestType != null;
+    }
+
+    /**
+     * Activates the endpoints of the edges a move is about to change
+     */
+    private void activateTouched(Route route, DontLookBits dontLookBits, MoveType type, int i, int j,
+                                 int segment) {
+        switch (type) {
+            case SWAP_NODES:
+                dontLookBits.activate(route.getPrev(i));
+                dontLookBits.activate(route.get(i));
+                dontLookBits.activate(route.getNext(i));
+                dontLookBits.activate(route.getPrev(j));
+                dontLookBits.activate(route.get(j));
+                dontLookBits.activate(route.getNext(j));
+                break;
+            case TWO_OPT:
+                dontLookBits.activate(route.get(i));
+                dontLookBits.activate(route.getNext(i));
+                dontLookBits.activate(route.get(j));
+                dontLookBits.activate(route.getNext(j));
+                break;
+            case OR_OPT: {
+                int last = (i + Math.abs(segment) - 1) % route.size();
+                dontLookBits.activate(route.getPrev(i));
+                dontLookBits.activate(route.get(i));
+                dontLookBits.activate(route.get(last));
+                dontLookBits.activate(route.getNext(last));
+                dontLookBits.activate(route.get(j));
+                dontLookBits.activate(route.getNext(j));
+                break;
+            }
+            case EXCHANGE_SELECTED_UNSELECTED:
+                dontLookBits.activate(route.getPrev(i));
+                dontLookBits.activate(j);
+                dontLookBits.activate(route.getNext(i));
+                break;
+        }
+    }
+
+    /** Longest Or-opt segment for a route of n nodes: the rest must hold two other edges */
+    private static int maxSegment(int n) {
+        return Math.max(0, Math.min(MAX_SEGMENT, n - 3));
+    }
+
+    /**
+     * Evaluates every Or-opt move of the segment route[i..i+length-1]. Returns whether one of
+     * them beat bestDelta (and was recorded).
+     */
+    private boolean scanOrOpt(Route route, int i, int length) {
+        boolean found = false;
+        for (int end = 0; end < 2; end++) {
+            for (int t = 0; t < OR_OPT_CANDIDATES; t++) {
+                if (tryOrOpt(route, i, length, end, t, false)) {
+                    found = true;
+                    if (!useSteepest) return true;
+                }
+                if (tryOrOpt(route, i, length, end, t, true)) {
+                    found = true;
+                    if (!useSteepest) return true;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Or-opt move putting the segment route[i..i+length-1] next to x, the t-th candidate of its
+     * first (end 0) or last (end 1) node, so that this node and x become neighbors: the first
+     * node goes right after x, or right before it if the segment is reversed; the last node
+     * the other way round. Records the move if it beats bestDelta and returns whether it did.
+     */
+    private boolean tryOrOpt(Route route, int i, int length, int end, int t, boolean reversed) {
+        if (length == 1 && reversed) return false; // same as not reversed
+        int n = route.size();
+        int node = route.get(end == 0 ? i : (i + length - 1) % n);
+        if (t >= candidates[node].length) return false;
+        int x = candidates[node][t];
+        if (!route.contains(x)) return false;
+
+        int px = route.indexOf(x);
+        boolean afterX = (end == 0) != reversed;
+        int target = afterX ? px : (px == 0 ? n - 1 : px - 1); // segment goes after route[target]
+        int offset = target - i;
+        if (offset < 0) offset += n;
+        if (offset < length || offset == n - 1) return false; // target edge touches the segment
+
+        int delta = deltaOrOpt(route, i, length, target, reversed);
+        if (delta >= bestDelta) return false;
+        recordBest(MoveType.OR_OPT, i, target, delta);
+        bestSegment = reversed ? -length : length;
+        return true;
+    }
+
+    private void recordBest(MoveType type, int i, int j, int delta) {
+        bestType = type;
+        bestI = i;
+        bestJ = j;
+        bestDelta = delta;
+    }
+
+    /**
+     * Greedy scan: visits the neighborhood in a random order, without creating it, and leaves
+     * the first improving move in bestType, bestI, bestJ and bestDelta. Returns false if no
+     * move improves.
+     *
+     * Moves are numbered: first the intra-route moves, one number per valid pair i < j (a
+     * triangular index, see intraMoveCount), then with Or-opt the segment start, length,
+     * candidate, end and direction of an Or-opt move (numbers that are no valid move are
+     * skipped), the numbers after that are position i with the k-th unselected node.
+     * They are visited as start + t * step (mod count) with a random start and a random step
+     * coprime to count, which reaches every number once. That order is far from uniformly
+     * random (numbers t * step apart follow each other in every scan), but it costs O(1) per
+     * move and no memory, where shuffling the whole neighborhood cost O(count) per move taken.
+     */
+    private boolean findFirstImprovingMove(Route route, Selection selection) {
+        int n = route.size();
+        int unselected = selection.unselectedCount();
+        long intraCount = intraMoveCount(n);
+        int segments = useOrOpt ? maxSegment(n) : 0;
+        long orOptEnd = intraCount + (long) n * segments * OR_OPT_CANDIDATES * 4;
+        long count = orOptEnd + (long) n * unselected;
+        bestType = null;
+        bestDelta = 0;
+        if (count == 0) return false;
+
+        long step;
+        do {
+            step = 1 + random.nextLong(count);
+        } while (gcd(step, count) != 1);
+        long index = random.nextLong(count);
+
+        for (long t = 0; t < count; t++) {
+            if (index < intraCount) {
+                // index = m * (m - 1) / 2 + r with 0 <= r < m
+                int m = triangleRow(index);
+                int r = (int) (index - (long) m * (m - 1) / 2);
+                if (useNodeExchange) {
+                    int delta = deltaSwap(route, r, m);
+                    if (delta < 0) { recordBest(MoveType.SWAP_NODES, r, m, delta); return true; }
+                } else {
+                    int i = m - 1 - r;
+                    int j = m + 1;
+                    int delta = deltaTwoOpt(route, i, j);
+                    if (delta < 0) { recordBest(MoveType.TWO_OPT, i, j, delta); return true; }
+                }
+            } else if (index < orOptEnd) {
+                long k = index - intraCount;
+                boolean reversed = k % 2 == 1;
+                int end = (int) (k / 2 % 2);
+                k /= 4;
+                int candidate = (int) (k % OR_OPT_CANDIDATES);
+                k /= OR_OPT_CANDIDATES;
+                int length = (int) (k % segments) + 1;
+                int i = (int) (k / segments);
+                if (tryOrOpt(route, i, length, end, candidate, reversed)) return true;
+            } else {
+                long k = index - orOptEnd;
+                int i = (int) (k / unselected);
+                int node = selection.getUnselected((int) (k % unselected));
+                int delta = deltaInter(route, i, node);
+                if (delta < 0) { recordBest(MoveType.EXCHANGE_SELECTED_UNSELECTED, i, node, delta); return true; }
+            }
+            index += step;
+            if (index >= count) index -= count;
+        }
+        return false;
+    }
+
+    /**
+     * Number of intra-route moves on n positions. Swaps are all pairs i < j. 2-opt moves are
+     * the pairs with j >= i + 2 except (0, n - 1), whose edges are adjacent: numbered as
+     * (i, j) = (m - 1 - r, m + 1) over the triangle 0 <= r < m <= n - 2, (0, n - 1) is the last
+     * number of the triangle and is left out of the count.
+     */
+    private long intraMoveCount(int n) {
+        if (useNodeExchange) return (long) n * (n - 1) / 2;
+        return n < 3 ? 0 : (long) (n - 1) * (n - 2) / 2 - 1;
+    }
+
+    /**
+     * Largest m with m * (m - 1) / 2 <= k
+     */
+    private static int triangleRow(long k) {
+        int m = (int) ((1 + Math.sqrt(1 + 8.0 * k)) / 2);
+        while ((long) m * (m - 1) / 2 > k) m--;
+        while ((long) (m + 1) * m / 2 <= k) m++;
+        return m;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /** Delta for swapping two nodes */
+    private int deltaSwap(Route route, int i, int j) {
+        if (i == j) return 0;
+
+        int ni = route.get(i);
+        int nj = route.get(j);
+        int iPrev = route.getPrev(i);
+        int iNext = route.getNext(i);
+        int jPrev = route.getPrev(j);
+        int jNext = route.getNext(j);
+
+        int before = 0, after = 0;
+
+        if (iPrev != nj && jPrev != ni) {
+            before += distance(iPrev, ni) + distance(ni, iNext);
+            before += distance(jPrev, nj) + distance(nj, jNext);
+
+            after += distance(iPrev, nj) + distance(nj, iNext);
+            after += distance(jPrev, ni) + distance(ni, jNext);
+        }
+
+        return after - before;
+    }
+
+    /** Delta for 2-opt edge reversal */
+    private int deltaTwoOpt(Route route, int i, int j) {
+        int a = route.get(i);
+        int b = route.get(i + 1);
+        int c = route.get(j);
+        int d = route.getNext(j);
+
+        int before = distance(a, b) + distance(c, d);
+        int after = distance(a, c) + distance(b, d);
+        return after - before;
+    }
+
+    /**
+     * Delta for Or-opt: the segment route[i..i+length-1] leaves its place, which is closed by
+     * the edge (prev, next), and goes between route[target] and its successor
+     */
+    private int deltaOrOpt(Route route, int i, int length, int target, boolean reversed) {
+        int last = (i + length - 1) % route.size();
+        int first = route.get(i);
+        int lastNode = route.get(last);
+        int prev = route.getPrev(i);
+        int next = route.getNext(last);
+        int c = route.get(target);
+        int d = route.getNext(target);
+
+        int before = distance(prev, first) + distance(lastNode, next) + distance(c, d);
+        int after = distance(prev, next) + (reversed
+                ? distance(c, lastNode) + distance(first, d)
+                : distance(c, first) + distance(lastNode, d));
+        return after - before;
+    }
+
+    /** Delta for inter-route (selected ↔ unselected) swap */
+    private int deltaInter(Route route, int selectedIndex, int unselectedNode) {
+        int selectedNode = route.get(selectedIndex);
+        int prev = route.getPrev(selectedIndex);
+        int next = route.getNext(selectedIndex);
+
+        // arc costs include the cost of the node being entered
+        int before = arcCost(prev, selectedNode) + distance(selectedNode, next);
+        int after = arcCost(prev, unselectedNode) + distance(unselectedNode, next);
+
+        return after - before;
+    }
+
+    /** Apply the move */
+    private void applyMove(Route route, Selection selection, MoveType type, int i, int j, int segment) {
+        switch (type) {
+            case SWAP_NODES:
+                route.swap(i, j);
+                break;
+            case TWO_OPT:
+                route.reverse(i + 1, j);
+                break;
+            case OR_OPT:
+                moveSegment(route, i, Math.abs(segment), j, segment < 0);
+                break;
+            case EXCHANGE_SELECTED_UNSELECTED:
+                selection.exchange(route.get(i), j);
+                route.set(i, j);
+                break;
+        }
+    }
+
+    /**
+     * Moves route[i..i+length-1] between route[target] and its successor by swapping it with
+     * the shorter of the two paths beside it, using three reversals at most
+     */
+    private void moveSegment(Route route, int i, int length, int target, boolean reversed) {
+        int n = route.size();
+        int last = (i + length - 1) % n;
+        int offset = target - i;
+        if (offset < 0) offset += n;
+        int after = offset - length + 1; // nodes from next(last) to route[target]
+        int before = n - 1 - offset;     // nodes from next(target) to prev(i)
+
+        if (after <= before) {
+            // [segment][after] -> [after][segment]
+            route.reverse(i, target);
+            route.reverse(i, (i + after - 1) % n);
+            if (!reversed) route.reverse((target - length + 1 + n) % n, target);
+        } else {
+            // [before][segment] -> [segment][before]
+            int start = (target + 1) % n;
+            route.reverse(start, last);
+            if (!reversed) route.reverse(start, (start + length - 1) % n);
+            route.reverse((start + length) % n, last);
+        }
+    }
+
+    private enum MoveType {
+        SWAP_NODES,
+        TWO_OPT,
+        OR_OPT,
+        EXCHANGE_SELECTED_UNSELECTED
+    }
+}
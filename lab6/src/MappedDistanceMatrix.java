@@ -0,0 +1,45 @@
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Distance matrix whose distances live in a read-only memory-mapped file
+ * (see DistanceMatrixCache). Only the node costs are kept on the heap, so
+ * several JVMs working on the same instance share one page-cache copy.
+ */
+public class MappedDistanceMatrix implements DistanceOracle {
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final MemorySegment distances; // row-major distances, long-indexed
+    private final int[] costs;             // node costs, for the arc-cost view
+    private final long n;
+
+    /**
+     * @param distances mapped segment holding n * n little-endian ints
+     * @param costs array of node costs
+     */
+    public MappedDistanceMatrix(MemorySegment distances, int[] costs) {
+        if (distances.byteSize() != (long) costs.length * costs.length * Integer.BYTES) {
+            throw new IllegalArgumentException("mapped segment does not hold a " + costs.length + "x" + costs.length + " matrix");
+        }
+        this.distances = distances;
+        this.costs = costs;
+        this.n = costs.length;
+    }
+
+    @Override
+    public int size() {
+        return costs.length;
+    }
+
+    @Override
+    public int getDistance(int i, int j) {
+        return distances.getAtIndex(INT, i * n + j);
+    }
+
+    @Override
+    public int getArcCost(int i, int j) {
+        return distances.getAtIndex(INT, i * n + j) + costs[j];
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.*;
+
+/**
+ * Steepest local search combining candidate moves and a move list.
+ *
+ * Only moves adding an edge between a node and one of its nearest candidates exist:
+ *  - 2-opt adding (a, c) for a candidate c of a, on the successor side (edges (a, next a) and
+ *    (c, next c) go) and on the predecessor side (edges (prev a, a) and (prev c, c) go)
+ *  - exchange of a route node x with an unselected candidate u of prev x or next x, adding the
+ *    edge (prev x, u) or (u, next x)
+ * The improving ones are kept in a MoveHeap. After a move only the candidate moves around the
+ * nodes whose edges changed are evaluated again; the stored moves on those nodes become stale
+ * through the heap's version stamps, and all other stored moves keep their delta.
+ *
+ * Same neighborhood type as LocalSearch(bundle, true, false), restricted to candidate edges,
+ * so it can replace it in MSLS, ILS and LargeNeighborhoodSearch.
+ */
+public class CandidateMoveListSearch extends TSPSolver implements Improver {
+
+    private static final int DEFAULT_CANDIDATES = 10;
+
+    private final int[][] candidates;     // candidates[a] = nearest nodes of a by arc cost
+    private final int[][] candidateOf;    // candidateOf[c] = nodes having c as a candidate
+    private final MoveHeap improvingMoves; // improving moves, best delta first
+    private final int[] marked;           // marked[node] == step: moves keyed at node redone this step
+    private final int[] around;           // nodes whose moves the current step re-evaluates
+    private int step;
+
+    public CandidateMoveListSearch(InstanceBundle bundle) {
+        this(bundle, DEFAULT_CANDIDATES);
+    }
+
+    /**
+     * @param candidateCount candidates per node, at most InstanceBundle.NEIGHBORS
+     */
+    public CandidateMoveListSearch(InstanceBundle bundle, int candidateCount) {
+        super(bundle);
+        int n = instance.size();
+        this.candidates = new int[n][];
+        int[] incoming = new int[n];
+        for (int a = 0; a < n; a++) {
+            int[] nearest = bundle.getNeighbors(a);
+            candidates[a] = Arrays.copyOf(nearest, Math.min(candidateCount, nearest.length));
+            for (int c : candidates[a]) incoming[c]++;
+        }
+        this.candidateOf = new int[n][];
+        for (int c = 0; c < n; c++) {
+            candidateOf[c] = new int[incoming[c]];
+            incoming[c] = 0;
+        }
+        for (int a = 0; a < n; a++) {
+            for (int c : candidates[a]) candidateOf[c][incoming[c]++] = a;
+        }
+        this.improvingMoves = new MoveHeap(n, 1024);
+        this.marked = new int[n];
+        this.around = new int[16];
+    }
+
+    @Override
+    public Result solve(List<Integer> initialRoute) {
+        Route route = new Route(initialRoute, instance.size());
+        int currentCost = computeTotalCost(route);
+        int iteration = 0;
+
+        improvingMoves.clear();
+        for (int a = route.first(), k = 0; k < route.size(); a = route.next(a), k++) {
+            addMovesAt(route, a);
+        }
+
+        while (!improvingMoves.isEmpty()) {
+            int move = improvingMoves.peek();
+            if (improvingMoves.isStale(move)) {
+                improvingMoves.remove(move); // edges of the move no longer exist
+                continue;
+            }
+
+            int a = improvingMoves.node(move, 0);
+            int b = improvingMoves.node(move, 1);
+            int c = improvingMoves.node(move, 2);
+            int d = improvingMoves.node(move, 3);
+            int delta = improvingMoves.delta(move);
+            step++;
+            int count = 0;
+
+            if (MOVE_TYPES[improvingMoves.type(move)] == MoveType.TWO_OPT) {
+                // (a, b) and (c, d) go, (a, c) and (b, d) come, in either direction
+                if (route.next(a) == b && route.next(c) == d) {
+                    route.flip(a, b, c, d);
+                } else if (route.next(b) == a && route.next(d) == c) {
+                    route.flip(b, a, d, c);
+                } else {
+                    improvingMoves.skip(move); // edges exist but point different ways
+                    continue;
+                }
+                improvingMoves.restoreSkipped();
+                improvingMoves.remove(move);
+            } else {
+                // a = prev, b = next, c leaves the route, d enters it
+                improvingMoves.restoreSkipped();
+                improvingMoves.remove(move);
+                route.replace(c, d);
+            }
+
+            // every edge the move removed or added ends in a, b, c or d
+            improvingMoves.touch(a);
+            improvingMoves.touch(b);
+            improvingMoves.touch(c);
+            improvingMoves.touch(d);
+            count = collectAround(route, a, count);
+            count = collectAround(route, b, count);
+            if (route.contains(c)) count = collectAround(route, c, count);
+            count = collectAround(route, d, count);
+
+            for (int k = 0; k < count; k++) {
+                addMovesAt(route, around[k]);
+            }
+            for (int k = 0; k < count; k++) {
+                addMovesTo(route, around[k]);
+            }
+            if (!route.contains(c)) {
+                addMovesTo(route, c);
+            }
+
+            currentCost += delta;
+            iteration++;
+            if (VERIFY_COST && iteration % VERIFY_INTERVAL == 0) {
+                verifyCost(route, currentCost);
+            }
+        }
+        improvingMoves.restoreSkipped();
+        if (VERIFY_COST) {
+            verifyCost(route, currentCost);
+        }
+
+        return new Result(route.toClosedList(), currentCost);
+    }
+
+    /**
+     * Marks a changed route node and its two neighbours for re-evaluation: their stored moves
+     * may remove one of its edges. Nodes already marked in this step are skipped.
+     */
+    private int collectAround(Route route, int node, int count) {
+        count = mark(route.prev(node), count);
+        count = mark(node, count);
+        return mark(route.next(node), count);
+    }
+
+    private int mark(int node, int count) {
+        if (marked[node] != step) {
+            marked[node] = step;
+            around[count++] = node;
+        }
+        return count;
+    }
+
+    /**
+     * Stores the improving candidate moves keyed at route node x: 2-opt on both sides for its
+     * candidates in the route, exchanges of x with the unselected candidates of its neighbours
+     */
+    private void addMovesAt(Route route, int x) {
+        for (int c : candidates[x]) {
+            if (route.contains(c)) addTwoOpts(route, x, c);
+        }
+        for (int u : candidates[route.prev(x)]) {
+            if (!route.contains(u)) addExchange(route, x, u);
+        }
+        for (int u : candidates[route.next(x)]) {
+            if (!route.contains(u)) addExchange(route, x, u);
+        }
+    }
+
+    /**
+     * Stores the improving moves involving w that are keyed at nodes not redone in this step:
+     * 2-opt of nodes having w as a candidate if w is in the route, exchanges with w next to
+     * such nodes if it is not
+     */
+    private void addMovesTo(Route route, int w) {
+        boolean inRoute = route.contains(w);
+        for (int a : candidateOf[w]) {
+            if (!route.contains(a)) continue;
+            if (inRoute) {
+                if (marked[a] != step) addTwoOpts(route, a, w);
+            } else {
+                int prev = route.prev(a), next = route.next(a);
+                if (marked[prev] != step) addExchange(route, prev, w);
+                if (marked[next] != step) addExchange(route, next, w);
+            }
+        }
+    }
+
+    /** Both 2-opt moves adding the edge (a, c) */
+    private void addTwoOpts(Route route, int a, int c) {
+        addTwoOpt(route, a, c);
+        addTwoOpt(route, route.prev(a), route.prev(c));
+    }
+
+    /** 2-opt removing (a, next a) and (c, next c), if it changes the route and improves */
+    private void addTwoOpt(Route route, int a, int c) {
+        int b = route.next(a);
+        int d = route.next(c);
+        if (a == c || c == b || a == d) return;
+        int delta = distance(a, c) + distance(b, d) - distance(a, b) - distance(c, d);
+        if (delta < 0) {
+            improvingMoves.insert(MoveType.TWO_OPT.ordinal(), delta, a, b, c, d);
+        }
+    }
+
+    /** Exchange of route node a with unselected node u, if it improves */
+    private void addExchange(Route route, int a, int u) {
+        int prev = route.prev(a);
+        int next = route.next(a);
+        // arc costs include the cost of the node being entered
+        int delta = arcCost(prev, u) + distance(u, next) - arcCost(prev, a) - distance(a, next);
+        if (delta < 0) {
+            improvingMoves.insert(MoveType.EXCHANGE_SELECTED_UNSELECTED.ordinal(), delta, prev, next, a, u);
+        }
+    }
+
+    private enum MoveType {
+        TWO_OPT,
+        EXCHANGE_SELECTED_UNSELECTED
+    }
+
+    // MoveType by ordinal, the type code stored in the heap
+    private static final MoveType[] MOVE_TYPES = MoveType.values();
+}
@@ -0,0 +1,38 @@
+/**
+ * Source of distances between the nodes of an instance.
+ *
+ * Implemented by the dense DistanceMatrix, the memory-mapped MappedDistanceMatrix and the
+ * CoordinateDistanceOracle, which computes distances on demand for instances too big for
+ * an n * n matrix. All solvers read distances through this interface only.
+ */
+public interface DistanceOracle {
+
+    /**
+     * Returns the number of nodes
+     */
+    int size();
+
+    /**
+     * Returns the rounded Euclidean distance between nodes i and j
+     */
+    int getDistance(int i, int j);
+
+    /**
+     * Returns the cost of travelling from i to j and visiting j,
+     * i.e. distance(i, j) + cost(j)
+     */
+    int getArcCost(int i, int j);
+
+    /**
+     * Prints the distance matrix in readable form
+     */
+    default void printMatrix() {
+        System.out.println("Distance Matrix:");
+        for (int i = 0; i < size(); i++) {
+            for (int j = 0; j < size(); j++) {
+                System.out.printf("%d\t", getDistance(i, j));
+            }
+            System.out.println();
+        }
+    }
+}
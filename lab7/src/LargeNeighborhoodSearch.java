@@ -6,18 +6,27 @@ import java.util.Random;
 public class LargeNeighborhoodSearch extends TSPSolver{
     private final boolean useLocalSearch;
     private final int maxTimeMs;
+    private final Improver localSearch;
 
-    public LargeNeighborhoodSearch(double[][] distanceMatrix, List<Node> nodes, boolean useLocalSearch, int maxTimeMs) {
-        super(distanceMatrix, nodes);
+    public LargeNeighborhoodSearch(InstanceBundle bundle, boolean useLocalSearch, int maxTimeMs) {
+        this(bundle, useLocalSearch, maxTimeMs, new LocalSearch(bundle, true, false));
+    }
+
+    /**
+     * @param localSearch the descent run after every repair when useLocalSearch is set
+     */
+    public LargeNeighborhoodSearch(InstanceBundle bundle, boolean useLocalSearch, int maxTimeMs,
+                                   Improver localSearch) {
+        super(bundle);
         this.useLocalSearch = useLocalSearch;
         this.maxTimeMs = maxTimeMs;
+        this.localSearch = localSearch;
     }
 
     public Result solve(){
         long startTime = System.currentTimeMillis();
 
         Result route = generateRandomSolution();
-        LocalSearch localSearch = new LocalSearch(distanceMatrix, nodes, true, false);
 
         if (useLocalSearch){
             route = localSearch.solve(route.getRoute());
@@ -38,7 +47,7 @@ public class LargeNeighborhoodSearch extends TSPSolver{
 
     public Result generateRandomSolution(){
         List<Integer> route = new ArrayList<>();
-        for (int i = 0; i < nodes.size(); i++) route.add(i);
+        for (int i = 0; i < instance.size(); i++) route.add(i);
         Collections.shuffle(route, new Random());
 
         // only keep 50% of nodes
@@ -47,7 +56,7 @@ public class LargeNeighborhoodSearch extends TSPSolver{
         // close the cycle
         route.add(route.getFirst());
 
-        double totalCost = computeTotalCost(route);
+        int totalCost = computeTotalCost(route);
         return new Result(new ArrayList<>(route), totalCost);
     }
 
@@ -1,43 +1,50 @@
-import java.util.*;
-
-public class MSLS extends TSPSolver {
-
-    private final int iterations;
-    private final Random random;
-
-    public MSLS(double[][] distanceMatrix, List<Node> nodes, int iterations) {
-        super(distanceMatrix, nodes);
-        this.iterations = iterations;
-        this.random = new Random();
-    }
-
-    public Result solve() {
-        Result bestResult = null;
-
-        // Instantiate Local Search (Steepest = true, NodeExchange = false -> 2-opt)
-        LocalSearch localSearch = new LocalSearch(distanceMatrix, nodes, true, false);
-
-        for (int i = 0; i < iterations; i++) {
-            // 1. Generate random start
-            List<Integer> randomRoute = generateRandomRoute();
-
-            // 2. Apply Local Search
-            Result currentResult = localSearch.solve(randomRoute);
-
-            // 3. Update Best Found
-            if (bestResult == null || currentResult.getTotalCost() < bestResult.getTotalCost()) {
-                bestResult = currentResult;
-            }
-        }
-        return bestResult;
-    }
-
-    private List<Integer> generateRandomRoute() {
-        List<Integer> allIndices = new ArrayList<>();
-        for (int i = 0; i < nodes.size(); i++) allIndices.add(i);
-        Collections.shuffle(allIndices, random);
-
-        int routeSize = (int)(nodes.size() * 0.5);
-        return new ArrayList<>(allIndices.subList(0, routeSize));
-    }
+import java.util.*;
+
+public class MSLS extends TSPSolver {
+
+    private final int iterations;
+    private final Random random;
+    private final Improver localSearch;
+
+    public MSLS(InstanceBundle bundle, int iterations) {
+        // Steepest = true, NodeExchange = false -> 2-opt
+        this(bundle, iterations, new LocalSearch(bundle, true, false));
+    }
+
+    /**
+     * @param localSearch the descent run from every random start
+     */
+    public MSLS(InstanceBundle bundle, int iterations, Improver localSearch) {
+        super(bundle);
+        this.iterations = iterations;
+        this.random = new Random();
+        this.localSearch = localSearch;
+    }
+
+    public Result solve() {
+        Result bestResult = null;
+
+        for (int i = 0; i < iterations; i++) {
+            // 1. Generate random start
+            List<Integer> randomRoute = generateRandomRoute();
+
+            // 2. Apply Local Search
+            Result currentResult = localSearch.solve(randomRoute);
+
+            // 3. Update Best Found
+            if (bestResult == null || currentResult.getTotalCost() < bestResult.getTotalCost()) {
+                bestResult = currentResult;
+            }
+        }
+        return bestResult;
+    }
+
+    private List<Integer> generateRandomRoute() {
+        List<Integer> allIndices = new ArrayList<>();
+        for (int i = 0; i < instance.size(); i++) allIndices.add(i);
+        Collections.shuffle(allIndices, random);
+
+        int routeSize = (int)(instance.size() * 0.5);
+        return new ArrayList<>(allIndices.subList(0, routeSize));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,255 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of moves kept in primitive parallel arrays (type, delta and four nodes per
+ * move), ordered by delta and, for equal deltas, by insertion order.
+ *
+ * Inserting a move returns a handle that stays valid until the move is popped or removed, so a
+ * move can be removed from the middle of the heap in O(log m).
+ *
+ * Every node has a version, bumped by touch whenever an edge at the node changes, and every
+ * move keeps the versions its nodes had when it was inserted. A move is stale once one of its
+ * nodes has been touched since; stale moves are not searched for but dropped when they reach
+ * the top, so invalidation costs O(1) per changed node.
+ * A move can be skipped: taken out of the heap order while its handle stays valid, until
+ * restoreSkipped puts all skipped moves back.
+ */
+public class MoveHeap {
+    private static final int NODES = 4;      // nodes per move
+    private static final int FREE = -1;      // place of an unused handle
+    private static final int SKIPPED = -2;   // place of a skipped move
+
+    private int[] type;
+    private int[] delta;
+    private int[] nodes;      // nodes[NODES * handle + k] = k-th node of the move
+    private int[] stamps;     // stamps[NODES * handle + k] = version of that node at insertion
+    private long[] order;     // insertion number, breaks ties between equal deltas
+    private int[] place;      // place[handle] = index in heap, FREE or SKIPPED
+
+    private int[] heap;       // heap[k] = handle, heap[0] has the smallest delta
+    private int size;
+
+    private int[] freeHandles;
+    private int freeCount;
+    private int handleCount;  // handles ever handed out
+    private long inserted;
+
+    private int[] skipped;
+    private int skippedCount;
+
+    private final int[] version;  // version[node], bumped by touch
+
+    /**
+     * @param nodeCount number of nodes in the instance
+     * @param capacity initial number of moves; the arrays grow as needed
+     */
+    public MoveHeap(int nodeCount, int capacity) {
+        capacity = Math.max(1, capacity);
+        this.type = new int[capacity];
+        this.delta = new int[capacity];
+        this.nodes = new int[NODES * capacity];
+        this.stamps = new int[NODES * capacity];
+        this.order = new long[capacity];
+        this.place = new int[capacity];
+        this.heap = new int[capacity];
+        this.freeHandles = new int[capacity];
+        this.skipped = new int[capacity];
+        this.version = new int[nodeCount];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (int h = 0; h < handleCount; h++) {
+            place[h] = FREE;
+        }
+        size = 0;
+        freeCount = 0;
+        handleCount = 0;
+        skippedCount = 0;
+    }
+
+    /**
+     * Adds a move and returns its handle
+     */
+    public int insert(int moveType, int moveDelta, int a, int b, int c, int d) {
+        int h = freeCount > 0 ? freeHandles[--freeCount] : newHandle();
+        type[h] = moveType;
+        delta[h] = moveDelta;
+        order[h] = inserted++;
+        int base = NODES * h;
+        nodes[base] = a;
+        nodes[base + 1] = b;
+        nodes[base + 2] = c;
+        nodes[base + 3] = d;
+        for (int k = 0; k < NODES; k++) {
+            stamps[base + k] = version[nodes[base + k]];
+        }
+        place[h] = size;
+        heap[size++] = h;
+        siftUp(size - 1);
+        return h;
+    }
+
+    /**
+     * Returns the handle of the move with the smallest delta, without removing it
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Removes the move with the smallest delta and returns its former handle
+     */
+    public int pop() {
+        int h = heap[0];
+        remove(h);
+        return h;
+    }
+
+    /**
+     * Removes a move, whether it is in the heap or skipped
+     */
+    public void remove(int h) {
+        int k = place[h];
+        if (k == FREE) return;
+        if (k == SKIPPED) {
+            for (int s = 0; s < skippedCount; s++) {
+                if (skipped[s] == h) {
+                    skipped[s] = skipped[--skippedCount];
+                    break;
+                }
+            }
+        } else {
+            detach(k);
+        }
+        place[h] = FREE;
+        freeHandles[freeCount++] = h;
+    }
+
+    /**
+     * Makes every move stored so far that involves the node stale
+     */
+    public void touch(int node) {
+        version[node]++;
+    }
+
+    /**
+     * Whether a node of the move has been touched since the move was inserted
+     */
+    public boolean isStale(int h) {
+        int base = NODES * h;
+        for (int k = 0; k < NODES; k++) {
+            if (stamps[base + k] != version[nodes[base + k]]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes a move out of the heap order, keeping it until restoreSkipped
+     */
+    public void skip(int h) {
+        detach(place[h]);
+        place[h] = SKIPPED;
+        skipped[skippedCount++] = h;
+    }
+
+    /**
+     * Puts all skipped moves back into the heap
+     */
+    public void restoreSkipped() {
+        for (int s = 0; s < skippedCount; s++) {
+            int h = skipped[s];
+            place[h] = size;
+            heap[size++] = h;
+            siftUp(size - 1);
+        }
+        skippedCount = 0;
+    }
+
+    public int type(int h) {
+        return type[h];
+    }
+
+    public int delta(int h) {
+        return delta[h];
+    }
+
+    /**
+     * Returns the k-th node (0 to 3) of a move
+     */
+    public int node(int h, int k) {
+        return nodes[NODES * h + k];
+    }
+
+    private int newHandle() {
+        if (handleCount == place.length) {
+            grow(2 * place.length);
+        }
+        return handleCount++;
+    }
+
+    private void grow(int capacity) {
+        type = Arrays.copyOf(type, capacity);
+        delta = Arrays.copyOf(delta, capacity);
+        nodes = Arrays.copyOf(nodes, NODES * capacity);
+        stamps = Arrays.copyOf(stamps, NODES * capacity);
+        order = Arrays.copyOf(order, capacity);
+        place = Arrays.copyOf(place, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        freeHandles = Arrays.copyOf(freeHandles, capacity);
+        skipped = Arrays.copyOf(skipped, capacity);
+    }
+
+    /**
+     * Takes the move at heap index k out of the heap order
+     */
+    private void detach(int k) {
+        int last = heap[--size];
+        if (k == size) return;
+        heap[k] = last;
+        place[last] = k;
+        siftUp(k);
+        siftDown(place[last]);
+    }
+
+    private boolean less(int h1, int h2) {
+        return delta[h1] < delta[h2] || (delta[h1] == delta[h2] && order[h1] < order[h2]);
+    }
+
+    private void siftUp(int k) {
+        int h = heap[k];
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            int p = heap[parent];
+            if (!less(h, p)) break;
+            heap[k] = p;
+            place[p] = k;
+            k = parent;
+        }
+        heap[k] = h;
+        place[h] = k;
+    }
+
+    private void siftDown(int k) {
+        int h = heap[k];
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= size) break;
+            if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+            int c = heap[child];
+            if (!less(c, h)) break;
+            heap[k] = c;
+            place[c] = k;
+            k = child;
+        }
+        heap[k] = h;
+        place[h] = k;
+    }
+}